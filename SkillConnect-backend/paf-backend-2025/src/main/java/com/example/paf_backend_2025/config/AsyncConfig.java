@@ -0,0 +1,87 @@
+package com.example.paf_backend_2025.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+
+    @Bean(name = "timelineExecutor")
+    public Executor timelineExecutor(@Value("${app.timeline.fan-out-threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("timeline-");
+        // A saturated pool degrades to fanning out on the posting thread rather than losing entries
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "maintenanceExecutor")
+    public Executor maintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("maintenance-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "notificationStreamExecutor")
+    public Executor notificationStreamExecutor(@Value("${app.notifications.stream.send-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("notification-stream-");
+        // Pushes are best effort; clients reconcile through the unread count on reconnect
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Independent reads issued together by one request, e.g. the user, media and tag lookups of a new post
+    @Bean(name = "lookupExecutor")
+    public Executor lookupExecutor(@Value("${app.posts.lookup-threads:8}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // No queue (a SynchronousQueue): a lookup waiting behind others would be slower than doing it inline
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("lookup-");
+        // When every thread is busy the request thread does the lookup itself, which is just the sequential path
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // Runs StreamingResponseBody downloads, each holding a thread until its response is written
+    @Bean(name = "exportExecutor")
+    public ThreadPoolTaskExecutor exportExecutor(@Value("${app.export.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("export-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Work-stealing pool for CPU-bound recommendation recomputes
+    @Bean(name = "recommendationPool", destroyMethod = "shutdown")
+    public ForkJoinPool recommendationPool(@Value("${app.recommendations.threads:2}") int threads) {
+        return new ForkJoinPool(threads);
+    }
+}
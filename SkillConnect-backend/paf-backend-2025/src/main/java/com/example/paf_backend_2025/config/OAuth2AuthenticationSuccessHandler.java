@@ -3,6 +3,7 @@ package com.example.paf_backend_2025.config;
 import com.example.paf_backend_2025.models.AppUser;
 import com.example.paf_backend_2025.repositories.AppUserRepository;
 import com.example.paf_backend_2025.security.JwtTokenProvider;
+import com.example.paf_backend_2025.services.UserSearchService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -20,12 +21,15 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
 
     private final JwtTokenProvider tokenProvider;
     private final AppUserRepository userRepository;
+    private final UserSearchService userSearchService;
 
     @Autowired
     public OAuth2AuthenticationSuccessHandler(JwtTokenProvider tokenProvider,
-                                              AppUserRepository userRepository) {
+                                              AppUserRepository userRepository,
+                                              UserSearchService userSearchService) {
         this.tokenProvider = tokenProvider;
         this.userRepository = userRepository;
+        this.userSearchService = userSearchService;
     }
 
     @Override
@@ -42,7 +46,9 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
                     newUser.setFirstName(oAuth2User.getAttribute("name"));
                     newUser.setProfileImageUrl("https://i.pinimg.com/474x/9e/83/75/9e837528f01cf3f42119c5aeeed1b336.jpg");
                     newUser.setUsername(email); // or generate a username
-                    return userRepository.save(newUser);
+                    AppUser savedUser = userRepository.save(newUser);
+                    userSearchService.index(savedUser);
+                    return savedUser;
                 });
 
         // Generate JWT token
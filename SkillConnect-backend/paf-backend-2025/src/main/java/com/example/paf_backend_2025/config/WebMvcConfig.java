@@ -0,0 +1,28 @@
+package com.example.paf_backend_2025.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor exportExecutor;
+    private final long asyncTimeoutMillis;
+
+    public WebMvcConfig(@Qualifier("exportExecutor") ThreadPoolTaskExecutor exportExecutor,
+                        @Value("${app.export.timeout-ms:600000}") long asyncTimeoutMillis) {
+        this.exportExecutor = exportExecutor;
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+    }
+
+    // SSE emitters set their own timeout, so this only applies to streamed downloads
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportExecutor);
+        configurer.setDefaultTimeout(asyncTimeoutMillis);
+    }
+}
@@ -1,14 +1,25 @@
 package com.example.paf_backend_2025.controllers;
 
 import com.example.paf_backend_2025.dtos.AppUserDTO;
+import com.example.paf_backend_2025.dtos.CacheStatsDTO;
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.LoginDTO;
+import com.example.paf_backend_2025.dtos.RecommendationDTO;
 import com.example.paf_backend_2025.dtos.UserProfileDTO;
 import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.UserSummary;
+import com.example.paf_backend_2025.services.ActivityExportService;
 import com.example.paf_backend_2025.services.AppUserService;
+import com.example.paf_backend_2025.services.RecommendationService;
+import com.example.paf_backend_2025.services.UserSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +31,15 @@ public class AppUserController {
     @Autowired
     private AppUserService appUserService;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private ActivityExportService activityExportService;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody AppUserDTO appUserDTO) {
         try {
@@ -36,6 +56,36 @@ public class AppUserController {
         return ResponseEntity.ok(appUserService.getAllUsers());
     }
 
+    @GetMapping("/directory")
+    public ResponseEntity<CursorPageDTO<UserProfileDTO>> getDirectory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(appUserService.getDirectory(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserProfileDTO>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(appUserService.searchUsers(q, limit));
+    }
+
+    @GetMapping("/search/typeahead")
+    public ResponseEntity<List<UserSummary>> typeahead(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userSearchService.typeahead(q, limit));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(appUserService.getCacheStats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserProfileDTO> getUserById(@PathVariable String id) {
         Optional<UserProfileDTO> user = appUserService.getUserById(id);
@@ -43,6 +93,26 @@ public class AppUserController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<RecommendationDTO>> getRecommendations(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(recommendationService.getRecommendations(id, limit));
+    }
+
+    // Newline-delimited JSON, streamed as it is read
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportActivity(@PathVariable String id) {
+        if (appUserService.getUserById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("activity-" + id + ".ndjson").build().toString())
+                .body(out -> activityExportService.export(id, out));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<UserProfileDTO> updateUser(@PathVariable String id, @RequestBody AppUserDTO appUserDTO) {
         Optional<UserProfileDTO> updatedUser = appUserService.updateUser(id, appUserDTO);
@@ -6,6 +6,7 @@ import com.example.paf_backend_2025.models.AppUser;
 import com.example.paf_backend_2025.repositories.AppUserRepository;
 import com.example.paf_backend_2025.security.JwtAuthResponse;
 import com.example.paf_backend_2025.security.JwtTokenProvider;
+import com.example.paf_backend_2025.services.UserSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,6 +27,9 @@ public class AuthController {
     @Autowired
     AppUserRepository userRepository;
 
+    @Autowired
+    UserSearchService userSearchService;
+
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
 
@@ -76,7 +80,9 @@ public class AuthController {
                     newUser.setEmail(email);
                     newUser.setUsername(email);
                     newUser.setFirstName(name);
-                    return userRepository.save(newUser);
+                    AppUser savedUser = userRepository.save(newUser);
+                    userSearchService.index(savedUser);
+                    return savedUser;
                 });
 
         OAuth2UserDto userDto = new OAuth2UserDto();
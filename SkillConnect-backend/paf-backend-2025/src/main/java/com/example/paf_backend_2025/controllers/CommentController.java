@@ -1,5 +1,6 @@
 package com.example.paf_backend_2025.controllers;
 
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.MediaTypeDTO;
 import com.example.paf_backend_2025.services.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/comments")
@@ -24,6 +26,41 @@ public class CommentController {
         return ResponseEntity.ok(commentService.getCommentsByPost(postId));
     }
 
+    @GetMapping("/post/batch")
+    public ResponseEntity<Map<String, List<MediaTypeDTO.CommentResponseDTO>>> getPreviews(
+            @RequestParam List<String> postIds,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(commentService.getPreviews(postIds, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/post/{postId}/thread")
+    public ResponseEntity<CursorPageDTO<MediaTypeDTO.CommentResponseDTO>> getThread(
+            @PathVariable String postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(commentService.getThread(postId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}/replies")
+    public ResponseEntity<CursorPageDTO<MediaTypeDTO.CommentResponseDTO>> getReplies(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(commentService.getReplies(id, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<MediaTypeDTO.CommentResponseDTO>> getCommentsByUser(@PathVariable String userId) {
         return ResponseEntity.ok(commentService.getCommentsByUser(userId));
@@ -1,5 +1,6 @@
 package com.example.paf_backend_2025.controllers;
 
+import com.example.paf_backend_2025.dtos.FollowGraphStatsDTO;
 import com.example.paf_backend_2025.dtos.FollowRequestDto;
 import com.example.paf_backend_2025.services.FollowService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +33,11 @@ public class FollowController {
         return followService.getFollowerCount(userId);
     }
 
+    @GetMapping("/graph/stats")
+    public FollowGraphStatsDTO getGraphStats() {
+        return followService.getGraphStats();
+    }
+
     @GetMapping("/is-following")
     public boolean isFollowing(@RequestParam String followerId, @RequestParam String followingId) {
         return followService.isFollowing(followerId, followingId);
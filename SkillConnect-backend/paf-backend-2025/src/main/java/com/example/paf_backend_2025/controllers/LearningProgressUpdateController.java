@@ -3,15 +3,22 @@ package com.example.paf_backend_2025.controllers;
 
 import com.example.paf_backend_2025.dtos.CreateLearningProgressUpdateDTO;
 import com.example.paf_backend_2025.dtos.LearningProgressUpdateDTO;
+import com.example.paf_backend_2025.dtos.ProgressBucketDTO;
+import com.example.paf_backend_2025.dtos.ProgressStatsDTO;
 import com.example.paf_backend_2025.dtos.PublicStatusRequest;
+import com.example.paf_backend_2025.dtos.SkillStatsDTO;
 import com.example.paf_backend_2025.dtos.UpdateLearningProgressUpdateDTO;
 import com.example.paf_backend_2025.models.LearningProgressUpdate;
 import com.example.paf_backend_2025.services.LearningProgressUpdateService;
+import com.example.paf_backend_2025.services.ProgressAnalyticsService;
+import com.example.paf_backend_2025.services.ProgressRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,10 +27,16 @@ import java.util.Optional;
 public class LearningProgressUpdateController {
 
     private final LearningProgressUpdateService progressService;
+    private final ProgressAnalyticsService progressAnalyticsService;
+    private final ProgressRollupService progressRollupService;
 
     @Autowired
-    public LearningProgressUpdateController(LearningProgressUpdateService progressService) {
+    public LearningProgressUpdateController(LearningProgressUpdateService progressService,
+                                            ProgressAnalyticsService progressAnalyticsService,
+                                            ProgressRollupService progressRollupService) {
         this.progressService = progressService;
+        this.progressAnalyticsService = progressAnalyticsService;
+        this.progressRollupService = progressRollupService;
     }
 
     @GetMapping
@@ -38,6 +51,57 @@ public class LearningProgressUpdateController {
         return new ResponseEntity<>(updates, HttpStatus.OK);
     }
 
+    @GetMapping("/stats/user/{userId}")
+    public ResponseEntity<ProgressStatsDTO> getUserStats(@PathVariable String userId) {
+        return new ResponseEntity<>(progressAnalyticsService.getUserStats(userId), HttpStatus.OK);
+    }
+
+    // Day, week or month buckets overlapping [from, to]
+    @GetMapping("/stats/user/{userId}/timeline")
+    public ResponseEntity<List<ProgressBucketDTO>> getUserTimeline(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = ProgressRollupService.DAY) String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return new ResponseEntity<>(progressRollupService.getBuckets(userId, granularity, from, to), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/stats/timeline")
+    public ResponseEntity<List<ProgressBucketDTO>> getTimeline(
+            @RequestParam(defaultValue = ProgressRollupService.DAY) String granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return new ResponseEntity<>(progressRollupService.getBuckets(null, granularity, from, to), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Recomputes the buckets for a createdAt range in the background
+    @PostMapping("/stats/timeline/rebuild")
+    public ResponseEntity<Void> rebuildTimeline(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (progressRollupService.isRebuilding()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        progressRollupService.rebuildAsync(from, to);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/stats/skills")
+    public ResponseEntity<List<SkillStatsDTO>> getSkillStats() {
+        return new ResponseEntity<>(progressAnalyticsService.getSkillStats(), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<LearningProgressUpdateDTO> getProgressUpdateById(@PathVariable String id) {
         LearningProgressUpdateDTO update = progressService.getProgressUpdateById(id);
@@ -56,12 +120,17 @@ public class LearningProgressUpdateController {
             @PathVariable String id,
             @RequestBody UpdateLearningProgressUpdateDTO updateDTO) {
         LearningProgressUpdateDTO updatedUpdate = progressService.updateProgressUpdate(id, updateDTO);
+        if (updatedUpdate == null) {
+            return ResponseEntity.notFound().build();
+        }
         return new ResponseEntity<>(updatedUpdate, HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProgressUpdate(@PathVariable String id) {
-        progressService.deleteProgressUpdate(id);
+        if (!progressService.deleteProgressUpdate(id)) {
+            return ResponseEntity.notFound().build();
+        }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
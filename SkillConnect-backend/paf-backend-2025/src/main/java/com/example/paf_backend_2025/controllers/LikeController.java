@@ -2,12 +2,15 @@ package com.example.paf_backend_2025.controllers;
 
 import com.example.paf_backend_2025.dtos.LikeDTO;
 import com.example.paf_backend_2025.dtos.LikeResponseDTO;
+import com.example.paf_backend_2025.dtos.LikeToggleDTO;
 import com.example.paf_backend_2025.services.LikeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/likes")
@@ -37,9 +40,35 @@ public class LikeController {
         return ResponseEntity.ok(likeService.hasUserLikedPost(userId, postId));
     }
 
+    @GetMapping("/check/batch")
+    public ResponseEntity<Set<String>> getLikedPostIds(
+            @RequestParam String userId,
+            @RequestParam List<String> postIds) {
+        try {
+            return ResponseEntity.ok(likeService.getLikedPostIds(userId, postIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<LikeResponseDTO> createLike(@RequestBody LikeDTO likeDTO) {
-        return ResponseEntity.ok(likeService.createLike(likeDTO));
+        try {
+            return ResponseEntity.ok(likeService.createLike(likeDTO));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @PostMapping("/toggle")
+    public ResponseEntity<LikeToggleDTO> toggleLike(@RequestBody LikeDTO likeDTO) {
+        try {
+            return likeService.toggleLike(likeDTO)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @DeleteMapping("/{id}")
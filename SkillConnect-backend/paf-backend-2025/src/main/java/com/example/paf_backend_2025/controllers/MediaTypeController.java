@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/media-types")
@@ -30,6 +31,15 @@ public class MediaTypeController {
         return ResponseEntity.ok(mediaTypeService.getMediaTypesByPost(postId));
     }
 
+    @GetMapping("/post/batch")
+    public ResponseEntity<Map<String, List<MediaTypeResponseDTO>>> getMediaTypesByPosts(@RequestParam List<String> postIds) {
+        try {
+            return ResponseEntity.ok(mediaTypeService.getMediaTypesByPosts(postIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<MediaTypeResponseDTO> getMediaTypeById(@PathVariable String id) {
         return mediaTypeService.getMediaTypeById(id)
@@ -1,10 +1,16 @@
 package com.example.paf_backend_2025.controllers;
 
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.NotificationDTO;
+import com.example.paf_backend_2025.dtos.NotificationPipelineStatsDTO;
 import com.example.paf_backend_2025.models.Notification;
+import com.example.paf_backend_2025.services.NotificationPublisher;
 import com.example.paf_backend_2025.services.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -16,6 +22,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+
     @GetMapping("/user/{userId}")
     public List<NotificationDTO> getUserNotifications(@PathVariable String userId) {
         try {
@@ -28,11 +37,53 @@ public class NotificationController {
     }
 
 
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getUserNotificationPage(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean unreadOnly,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(notificationService.getNotifications(userId, cursor, unreadOnly, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/stream/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(@PathVariable String userId) {
+        try {
+            return ResponseEntity.ok(notificationService.subscribe(userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/count/{userId}")
     public long getNotificationCount(@PathVariable String userId) {
         return notificationService.getNotificationCountByUserId(userId);
     }
 
+    @GetMapping("/count/{userId}/unread")
+    public long getUnreadNotificationCount(@PathVariable String userId) {
+        return notificationService.getUnreadCountByUserId(userId);
+    }
+
+    @PatchMapping("/{notificationId}/read")
+    public boolean markAsRead(@PathVariable String notificationId) {
+        return notificationService.markAsRead(notificationId);
+    }
+
+    @PatchMapping("/user/{userId}/read")
+    public long markAllAsRead(@PathVariable String userId) {
+        return notificationService.markAllAsRead(userId);
+    }
+
+    @GetMapping("/pipeline/stats")
+    public NotificationPipelineStatsDTO getPipelineStats() {
+        return notificationPublisher.getStats();
+    }
+
     @PostMapping("/")
     public Notification createNotification(
             @RequestParam String userId,
@@ -1,5 +1,6 @@
 package com.example.paf_backend_2025.controllers;
 
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.PostDTO;
 import com.example.paf_backend_2025.dtos.PostResponseDTO;
 import com.example.paf_backend_2025.services.PostService;
@@ -25,6 +26,30 @@ public class PostController {
         return ResponseEntity.ok(postService.getAllPosts());
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPageDTO<PostResponseDTO>> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String viewerId) {
+        try {
+            return ResponseEntity.ok(postService.getFeed(cursor, limit, viewerId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/timeline/{userId}")
+    public ResponseEntity<CursorPageDTO<PostResponseDTO>> getTimeline(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(postService.getTimeline(userId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PostResponseDTO> getPostById(@PathVariable String id) {
         return postService.getPostById(id)
@@ -0,0 +1,40 @@
+package com.example.paf_backend_2025.controllers;
+
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
+import com.example.paf_backend_2025.dtos.SearchHitDTO;
+import com.example.paf_backend_2025.services.ContentSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private ContentSearchService contentSearchService;
+
+    @GetMapping
+    public ResponseEntity<CursorPageDTO<SearchHitDTO>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(contentSearchService.search(q, type, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Rebuilds the index in the background
+    @PostMapping("/reindex")
+    public ResponseEntity<Void> reindex() {
+        if (contentSearchService.isReindexing()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        contentSearchService.reindexAsync();
+        return ResponseEntity.accepted().build();
+    }
+}
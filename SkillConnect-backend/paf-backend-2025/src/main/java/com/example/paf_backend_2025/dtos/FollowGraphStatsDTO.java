@@ -0,0 +1,59 @@
+package com.example.paf_backend_2025.dtos;
+
+public class FollowGraphStatsDTO {
+    private boolean ready;
+    private int users;
+    private long edges;
+    private long adjacencyBytes;
+    private long loadedAt;
+    private long loadMillis;
+
+    // Getters and Setters
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    public long getEdges() {
+        return edges;
+    }
+
+    public void setEdges(long edges) {
+        this.edges = edges;
+    }
+
+    public long getAdjacencyBytes() {
+        return adjacencyBytes;
+    }
+
+    public void setAdjacencyBytes(long adjacencyBytes) {
+        this.adjacencyBytes = adjacencyBytes;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public void setLoadedAt(long loadedAt) {
+        this.loadedAt = loadedAt;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    public void setLoadMillis(long loadMillis) {
+        this.loadMillis = loadMillis;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.paf_backend_2025.dtos;
+
+public class LikeToggleDTO {
+    private boolean liked;
+    private long likeCount;
+
+    public LikeToggleDTO() {
+    }
+
+    public LikeToggleDTO(boolean liked, long likeCount) {
+        this.liked = liked;
+        this.likeCount = likeCount;
+    }
+
+    public boolean isLiked() {
+        return liked;
+    }
+
+    public void setLiked(boolean liked) {
+        this.liked = liked;
+    }
+
+    public long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(long likeCount) {
+        this.likeCount = likeCount;
+    }
+}
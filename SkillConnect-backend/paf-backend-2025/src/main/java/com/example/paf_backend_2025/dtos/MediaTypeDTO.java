@@ -1,7 +1,6 @@
 package com.example.paf_backend_2025.dtos;
 
-import com.example.paf_backend_2025.models.AppUser;
-import com.example.paf_backend_2025.models.Post;
+import com.example.paf_backend_2025.models.UserSummary;
 
 import java.util.Date;
 
@@ -39,6 +38,7 @@ public class MediaTypeDTO {
         private String content;
         private String userId;
         private String postId;
+        private String parentId;    // Comment being replied to; null for a top-level comment
 
         // Getters and Setters
         public String getContent() {
@@ -64,6 +64,14 @@ public class MediaTypeDTO {
         public void setPostId(String postId) {
             this.postId = postId;
         }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        public void setParentId(String parentId) {
+            this.parentId = parentId;
+        }
     }
 
     public static class CommentResponseDTO {
@@ -71,8 +79,10 @@ public class MediaTypeDTO {
         private String content;
         private Date createdAt;
         private Date updatedAt;
-        private AppUser user;
-        private Post post;
+        private UserSummary user;
+        private String postId;
+        private String parentId;
+        private Long replyCount;    // Only set on top-level comments in thread pages
 
         // Getters and Setters
         public String getId() {
@@ -107,20 +117,36 @@ public class MediaTypeDTO {
             this.updatedAt = updatedAt;
         }
 
-        public AppUser getUser() {
+        public UserSummary getUser() {
             return user;
         }
 
-        public void setUser(AppUser user) {
+        public void setUser(UserSummary user) {
             this.user = user;
         }
 
-        public Post getPost() {
-            return post;
+        public String getPostId() {
+            return postId;
+        }
+
+        public void setPostId(String postId) {
+            this.postId = postId;
+        }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        public void setParentId(String parentId) {
+            this.parentId = parentId;
+        }
+
+        public Long getReplyCount() {
+            return replyCount;
         }
 
-        public void setPost(Post post) {
-            this.post = post;
+        public void setReplyCount(Long replyCount) {
+            this.replyCount = replyCount;
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.paf_backend_2025.dtos;
 
 import java.util.Date;
+import java.util.List;
 
 public class NotificationDTO {
 
@@ -15,7 +16,12 @@ public class NotificationDTO {
     private String id;
     private String title;
     private String message;
+    private boolean read;
     private Date createdAt;
+    private String type;
+    private String targetId;
+    private int actorCount;
+    private List<String> sampleActors;
 
     public NotificationDTO() {}
 
@@ -26,6 +32,11 @@ public class NotificationDTO {
         this.createdAt = createdAt;
     }
 
+    public NotificationDTO(String id, String title, String message, boolean read, Date createdAt) {
+        this(id, title, message, createdAt);
+        this.read = read;
+    }
+
     // Getters and Setters
     public String getTitle() {
         return title;
@@ -35,7 +46,43 @@ public class NotificationDTO {
         return message;
     }
 
+    public boolean isRead() {
+        return read;
+    }
+
     public Date getCreatedAt() {
         return createdAt;
     }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(String targetId) {
+        this.targetId = targetId;
+    }
+
+    public int getActorCount() {
+        return actorCount;
+    }
+
+    public void setActorCount(int actorCount) {
+        this.actorCount = actorCount;
+    }
+
+    public List<String> getSampleActors() {
+        return sampleActors;
+    }
+
+    public void setSampleActors(List<String> sampleActors) {
+        this.sampleActors = sampleActors;
+    }
 }
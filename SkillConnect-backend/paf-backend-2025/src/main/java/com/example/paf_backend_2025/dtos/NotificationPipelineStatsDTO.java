@@ -0,0 +1,86 @@
+package com.example.paf_backend_2025.dtos;
+
+public class NotificationPipelineStatsDTO {
+    private String overflowPolicy;
+    private int queueDepth;
+    private int queueCapacity;
+    private long published;
+    private long persisted;
+    private long dropped;
+    private long failed;
+    private long batches;
+    private long blockedMillis;
+
+    // Getters and Setters
+    public String getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public void setPublished(long published) {
+        this.published = published;
+    }
+
+    public long getPersisted() {
+        return persisted;
+    }
+
+    public void setPersisted(long persisted) {
+        this.persisted = persisted;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(long dropped) {
+        this.dropped = dropped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public void setBatches(long batches) {
+        this.batches = batches;
+    }
+
+    public long getBlockedMillis() {
+        return blockedMillis;
+    }
+
+    public void setBlockedMillis(long blockedMillis) {
+        this.blockedMillis = blockedMillis;
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.paf_backend_2025.dtos;
 
-import com.example.paf_backend_2025.models.AppUser;
-import com.example.paf_backend_2025.models.MediaType;
+import com.example.paf_backend_2025.models.MediaSummary;
+import com.example.paf_backend_2025.models.UserSummary;
 
 import java.util.Date;
 import java.util.List;
@@ -11,9 +11,13 @@ public class PostResponseDTO {
     private String caption;
     private Date createdAt;
     private Date updatedAt;
-    private AppUser user;
-    private List<MediaType> mediaTypes;
-    private List<AppUser> taggedUsers;
+    private UserSummary user;
+    private List<MediaSummary> mediaTypes;
+    private List<UserSummary> taggedUsers;
+    private long likeCount;
+    private long commentCount;
+    // Only filled when the request names a viewer; null otherwise
+    private Boolean likedByViewer;
 
     // Getters and Setters
     public String getId() {
@@ -48,27 +52,51 @@ public class PostResponseDTO {
         this.updatedAt = updatedAt;
     }
 
-    public AppUser getUser() {
+    public UserSummary getUser() {
         return user;
     }
 
-    public void setUser(AppUser user) {
+    public void setUser(UserSummary user) {
         this.user = user;
     }
 
-    public List<MediaType> getMediaTypes() {
+    public List<MediaSummary> getMediaTypes() {
         return mediaTypes;
     }
 
-    public void setMediaTypes(List<MediaType> mediaTypes) {
+    public void setMediaTypes(List<MediaSummary> mediaTypes) {
         this.mediaTypes = mediaTypes;
     }
 
-    public List<AppUser> getTaggedUsers() {
+    public List<UserSummary> getTaggedUsers() {
         return taggedUsers;
     }
 
-    public void setTaggedUsers(List<AppUser> taggedUsers) {
+    public void setTaggedUsers(List<UserSummary> taggedUsers) {
         this.taggedUsers = taggedUsers;
     }
-}
\ No newline at end of file
+
+    public long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(long likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public long getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(long commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    public Boolean getLikedByViewer() {
+        return likedByViewer;
+    }
+
+    public void setLikedByViewer(Boolean likedByViewer) {
+        this.likedByViewer = likedByViewer;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.paf_backend_2025.dtos;
+
+import java.util.List;
+
+public class ProgressBucketDTO {
+    private String granularity;
+    private String start;           // yyyy-MM-dd
+    private long count;
+    private double estimatedHours;
+    private double completedProgress;
+    private List<SkillStatsDTO> skills;
+
+    // Getters and Setters
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public void setStart(String start) {
+        this.start = start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getEstimatedHours() {
+        return estimatedHours;
+    }
+
+    public void setEstimatedHours(double estimatedHours) {
+        this.estimatedHours = estimatedHours;
+    }
+
+    public double getCompletedProgress() {
+        return completedProgress;
+    }
+
+    public void setCompletedProgress(double completedProgress) {
+        this.completedProgress = completedProgress;
+    }
+
+    public List<SkillStatsDTO> getSkills() {
+        return skills;
+    }
+
+    public void setSkills(List<SkillStatsDTO> skills) {
+        this.skills = skills;
+    }
+}
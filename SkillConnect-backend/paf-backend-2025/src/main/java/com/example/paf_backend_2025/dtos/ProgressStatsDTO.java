@@ -0,0 +1,106 @@
+package com.example.paf_backend_2025.dtos;
+
+import java.util.List;
+
+public class ProgressStatsDTO {
+    private String userId;
+    private long entryCount;
+    private double totalEstimatedHours;
+    private double totalCompletedProgress;
+    private long activeDays;
+    private double completionVelocity;  // Completed progress per active day
+    private String firstActiveDay;
+    private String lastActiveDay;
+    private int currentStreak;  // 0 once a full day passes without an update
+    private int longestStreak;
+    private List<SkillStatsDTO> skills;  // By templateType, most entries first
+
+    // Getters and Setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public double getTotalEstimatedHours() {
+        return totalEstimatedHours;
+    }
+
+    public void setTotalEstimatedHours(double totalEstimatedHours) {
+        this.totalEstimatedHours = totalEstimatedHours;
+    }
+
+    public double getTotalCompletedProgress() {
+        return totalCompletedProgress;
+    }
+
+    public void setTotalCompletedProgress(double totalCompletedProgress) {
+        this.totalCompletedProgress = totalCompletedProgress;
+    }
+
+    public long getActiveDays() {
+        return activeDays;
+    }
+
+    public void setActiveDays(long activeDays) {
+        this.activeDays = activeDays;
+    }
+
+    public double getCompletionVelocity() {
+        return completionVelocity;
+    }
+
+    public void setCompletionVelocity(double completionVelocity) {
+        this.completionVelocity = completionVelocity;
+    }
+
+    public String getFirstActiveDay() {
+        return firstActiveDay;
+    }
+
+    public void setFirstActiveDay(String firstActiveDay) {
+        this.firstActiveDay = firstActiveDay;
+    }
+
+    public String getLastActiveDay() {
+        return lastActiveDay;
+    }
+
+    public void setLastActiveDay(String lastActiveDay) {
+        this.lastActiveDay = lastActiveDay;
+    }
+
+    public int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public void setCurrentStreak(int currentStreak) {
+        this.currentStreak = currentStreak;
+    }
+
+    public int getLongestStreak() {
+        return longestStreak;
+    }
+
+    public void setLongestStreak(int longestStreak) {
+        this.longestStreak = longestStreak;
+    }
+
+    public List<SkillStatsDTO> getSkills() {
+        return skills;
+    }
+
+    public void setSkills(List<SkillStatsDTO> skills) {
+        this.skills = skills;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.paf_backend_2025.dtos;
+
+import com.example.paf_backend_2025.models.UserSummary;
+
+public class RecommendationDTO {
+    private UserSummary user;
+    private double score;
+    private int mutualFollows;
+    private int sharedSkills;
+
+    public RecommendationDTO() {
+    }
+
+    public RecommendationDTO(UserSummary user, double score, int mutualFollows, int sharedSkills) {
+        this.user = user;
+        this.score = score;
+        this.mutualFollows = mutualFollows;
+        this.sharedSkills = sharedSkills;
+    }
+
+    // Getters and Setters
+    public UserSummary getUser() {
+        return user;
+    }
+
+    public void setUser(UserSummary user) {
+        this.user = user;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public int getMutualFollows() {
+        return mutualFollows;
+    }
+
+    public void setMutualFollows(int mutualFollows) {
+        this.mutualFollows = mutualFollows;
+    }
+
+    public int getSharedSkills() {
+        return sharedSkills;
+    }
+
+    public void setSharedSkills(int sharedSkills) {
+        this.sharedSkills = sharedSkills;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.paf_backend_2025.dtos;
+
+public class SkillStatsDTO {
+    private String templateType;
+    private long count;
+    private double estimatedHours;
+    private double completedProgress;
+    private double averageProgress;
+    private double share;  // Fraction of the entries this skill accounts for
+
+    // Getters and Setters
+    public String getTemplateType() {
+        return templateType;
+    }
+
+    public void setTemplateType(String templateType) {
+        this.templateType = templateType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getEstimatedHours() {
+        return estimatedHours;
+    }
+
+    public void setEstimatedHours(double estimatedHours) {
+        this.estimatedHours = estimatedHours;
+    }
+
+    public double getCompletedProgress() {
+        return completedProgress;
+    }
+
+    public void setCompletedProgress(double completedProgress) {
+        this.completedProgress = completedProgress;
+    }
+
+    public double getAverageProgress() {
+        return averageProgress;
+    }
+
+    public void setAverageProgress(double averageProgress) {
+        this.averageProgress = averageProgress;
+    }
+
+    public double getShare() {
+        return share;
+    }
+
+    public void setShare(double share) {
+        this.share = share;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.paf_backend_2025.migrations;
+
+import com.example.paf_backend_2025.services.FollowGraph;
+import com.example.paf_backend_2025.services.FollowService;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts follows stored as follower/following DBRefs into followerId/followingId
+ * pairs, removes duplicate pairs, builds the unique follower_following_idx index
+ * and seeds the follower/following counters on users.
+ */
+@Component
+public class FollowPairMigration {
+
+    static final String INDEX_NAME = "follower_following_idx";
+
+    private static final Logger log = LoggerFactory.getLogger(FollowPairMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final FollowService followService;
+    private final FollowGraph followGraph;
+
+    @Value("${app.migrations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.migrations.batch-size:500}")
+    private int batchSize;
+
+    public FollowPairMigration(MongoTemplate mongoTemplate, FollowService followService, FollowGraph followGraph) {
+        this.mongoTemplate = mongoTemplate;
+        this.followService = followService;
+        this.followGraph = followGraph;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long converted = convertLegacyFollows();
+            long removed = removeDuplicates();
+            if (converted > 0 || removed > 0) {
+                log.info("Converted {} legacy follows, removed {} duplicates", converted, removed);
+                // The graph may have loaded before the legacy edges had pair fields
+                if (followGraph.isReady()) {
+                    followGraph.reload();
+                }
+            }
+            IndexOperations indexOps = mongoTemplate.indexOps("follows");
+            indexOps.ensureIndex(new CompoundIndexDefinition(new Document("followerId", 1).append("followingId", 1))
+                    .named(INDEX_NAME)
+                    .unique());
+            long repaired = followService.reconcileCounts();
+            if (repaired > 0) {
+                log.info("Seeded follow counters on {} users", repaired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Follow pair migration failed", e);
+        }
+    }
+
+    private long convertLegacyFollows() {
+        long converted = 0;
+        while (true) {
+            Query query = Query.query(Criteria.where("followerId").exists(false)).limit(batchSize);
+            query.fields().include("follower").include("following");
+            List<Document> legacy = mongoTemplate.find(query, Document.class, "follows");
+            if (legacy.isEmpty()) {
+                return converted;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "follows");
+            List<Object> broken = new ArrayList<>();
+            for (Document follow : legacy) {
+                DBRef follower = follow.get("follower", DBRef.class);
+                DBRef following = follow.get("following", DBRef.class);
+                if (follower == null || following == null) {
+                    broken.add(follow.get("_id"));
+                    continue;
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(follow.get("_id"))), new Update()
+                        .set("followerId", follower.getId().toString())
+                        .set("followingId", following.getId().toString())
+                        .unset("follower")
+                        .unset("following"));
+                converted++;
+            }
+            if (legacy.size() > broken.size()) {
+                bulk.execute();
+            }
+            if (!broken.isEmpty()) {
+                // Edges missing either end cannot be expressed as a pair
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(broken)), "follows");
+            }
+        }
+    }
+
+    private long removeDuplicates() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("followerId", "followingId")
+                        .push("_id").as("ids")
+                        .count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long removed = 0;
+        for (Document group : mongoTemplate.aggregate(aggregation, "follows", Document.class).getMappedResults()) {
+            List<Object> extras = group.getList("ids", Object.class).stream()
+                    .sorted((a, b) -> a.toString().compareTo(b.toString()))
+                    .skip(1)
+                    .toList();
+            removed += mongoTemplate.remove(Query.query(Criteria.where("_id").in(extras)), "follows").getDeletedCount();
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.paf_backend_2025.migrations;
+
+import com.example.paf_backend_2025.repositories.DBRefExpressions;
+import com.example.paf_backend_2025.services.PostCounterService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Removes duplicate (user, post) likes left by the old find-then-insert path
+ * and then builds the unique user_post_idx index that LikeService relies on.
+ * The index cannot be declared on the entity, since building it would fail
+ * at startup while duplicates remain.
+ */
+@Component
+public class LikeUniquenessMigration {
+
+    static final String INDEX_NAME = "user_post_idx";
+
+    private static final Logger log = LoggerFactory.getLogger(LikeUniquenessMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final PostCounterService postCounterService;
+
+    @Value("${app.migrations.enabled:true}")
+    private boolean enabled;
+
+    public LikeUniquenessMigration(MongoTemplate mongoTemplate, PostCounterService postCounterService) {
+        this.mongoTemplate = mongoTemplate;
+        this.postCounterService = postCounterService;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps("likes");
+            IndexInfo existing = indexOps.getIndexInfo().stream()
+                    .filter(index -> INDEX_NAME.equals(index.getName()))
+                    .findFirst()
+                    .orElse(null);
+            if (existing != null && existing.isUnique()) {
+                return;
+            }
+
+            long removed = removeDuplicates();
+            if (removed > 0) {
+                log.info("Removed {} duplicate likes", removed);
+                postCounterService.reconcileAll();
+            }
+            if (existing != null) {
+                indexOps.dropIndex(INDEX_NAME);
+            }
+            indexOps.ensureIndex(new CompoundIndexDefinition(new Document("user.$id", 1).append("post.$id", 1))
+                    .named(INDEX_NAME)
+                    .unique());
+        } catch (RuntimeException e) {
+            log.error("Like uniqueness migration failed", e);
+        }
+    }
+
+    private long removeDuplicates() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                context -> new Document("$group", new Document("_id", new Document()
+                        .append("user", DBRefExpressions.refId("user"))
+                        .append("post", DBRefExpressions.refId("post")))
+                        .append("ids", new Document("$push", "$_id"))
+                        .append("count", new Document("$sum", 1))),
+                Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long removed = 0;
+        for (Document group : mongoTemplate.aggregate(aggregation, "likes", Document.class).getMappedResults()) {
+            List<Object> ids = group.getList("ids", Object.class);
+            // Keep the earliest like of each pair
+            List<Object> extras = ids.stream()
+                    .sorted((a, b) -> a.toString().compareTo(b.toString()))
+                    .skip(1)
+                    .toList();
+            removed += mongoTemplate.remove(Query.query(Criteria.where("_id").in(extras)), "likes").getDeletedCount();
+        }
+        return removed;
+    }
+}
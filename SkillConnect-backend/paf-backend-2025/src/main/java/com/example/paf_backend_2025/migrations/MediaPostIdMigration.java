@@ -0,0 +1,110 @@
+package com.example.paf_backend_2025.migrations;
+
+import com.example.paf_backend_2025.models.MigrationRecord;
+import com.example.paf_backend_2025.services.MediaTypeService;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Media rows used to be saved without their postId. This fills it in from the
+ * posts whose mediaTypes reference them; rows that already have a postId are
+ * left alone, so a run cut short only touches what is still missing when it
+ * starts over on the next boot. Completion is recorded in the migrations
+ * collection, after which boots skip the scan of posts.
+ */
+@Component
+public class MediaPostIdMigration {
+
+    public static final String MIGRATION = "media-post-id";
+
+    private static final Logger log = LoggerFactory.getLogger(MediaPostIdMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaTypeService mediaTypeService;
+
+    @Value("${app.migrations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.migrations.batch-size:500}")
+    private int batchSize;
+
+    public MediaPostIdMigration(MongoTemplate mongoTemplate, MediaTypeService mediaTypeService) {
+        this.mongoTemplate = mongoTemplate;
+        this.mediaTypeService = mediaTypeService;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (mongoTemplate.exists(Query.query(Criteria.where("id").is(MIGRATION).and("completedAt").ne(null)),
+                    MigrationRecord.class)) {
+                return;
+            }
+            long updated = backfill();
+            if (updated > 0) {
+                log.info("Backfilled postId on {} media rows", updated);
+                // Lookups made before the backfill may have cached empty lists
+                mediaTypeService.clearCache();
+            }
+            mongoTemplate.upsert(Query.query(Criteria.where("id").is(MIGRATION)),
+                    new Update().set("completedAt", new Date()), MigrationRecord.class);
+        } catch (RuntimeException e) {
+            log.error("Media postId backfill failed", e);
+        }
+    }
+
+    private long backfill() {
+        Query query = Query.query(Criteria.where("mediaTypes.0").exists(true));
+        query.fields().include("mediaTypes");
+
+        long updated = 0;
+        BulkOperations bulk = null;
+        int pending = 0;
+        try (var posts = mongoTemplate.stream(query, Document.class, "posts")) {
+            for (Document post : (Iterable<Document>) posts::iterator) {
+                List<ObjectId> mediaIds = post.getList("mediaTypes", DBRef.class).stream()
+                        .filter(ref -> ref != null && ref.getId() instanceof ObjectId)
+                        .map(ref -> (ObjectId) ref.getId())
+                        .collect(Collectors.toList());
+                if (mediaIds.isEmpty()) {
+                    continue;
+                }
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "media_types");
+                }
+                bulk.updateMulti(Query.query(Criteria.where("_id").in(mediaIds).and("postId").is(null)),
+                        Update.update("postId", post.getObjectId("_id").toHexString()));
+                if (++pending == batchSize) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (bulk != null) {
+            updated += bulk.execute().getModifiedCount();
+        }
+        return updated;
+    }
+}
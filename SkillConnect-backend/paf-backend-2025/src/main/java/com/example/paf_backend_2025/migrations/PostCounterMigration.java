@@ -0,0 +1,46 @@
+package com.example.paf_backend_2025.migrations;
+
+import com.example.paf_backend_2025.services.PostCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds likeCount/commentCount on posts created before the counters existed.
+ * Reconciliation only writes posts whose stored counts are missing or wrong,
+ * so reruns are cheap.
+ */
+@Component
+public class PostCounterMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(PostCounterMigration.class);
+
+    private final PostCounterService postCounterService;
+
+    @Value("${app.migrations.enabled:true}")
+    private boolean enabled;
+
+    public PostCounterMigration(PostCounterService postCounterService) {
+        this.postCounterService = postCounterService;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long repaired = postCounterService.reconcileAll();
+            if (repaired > 0) {
+                log.info("Seeded like/comment counters on {} posts", repaired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Post counter backfill failed", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.paf_backend_2025.migrations;
+
+import com.example.paf_backend_2025.services.PostSummaryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the embedded author/media/tagged summaries on posts created before
+ * they existed. Runs once per startup in the background; already migrated posts
+ * are skipped by the query, so reruns are cheap.
+ */
+@Component
+public class PostSummaryMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(PostSummaryMigration.class);
+
+    private final PostSummaryService postSummaryService;
+
+    @Value("${app.migrations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.migrations.batch-size:500}")
+    private int batchSize;
+
+    public PostSummaryMigration(PostSummaryService postSummaryService) {
+        this.postSummaryService = postSummaryService;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long repaired = postSummaryService.backfillAll(batchSize);
+            if (repaired > 0) {
+                log.info("Backfilled summaries on {} posts", repaired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Post summary backfill failed", e);
+        }
+    }
+}
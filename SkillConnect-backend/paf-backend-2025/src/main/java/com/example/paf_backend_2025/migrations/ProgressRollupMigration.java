@@ -0,0 +1,61 @@
+package com.example.paf_backend_2025.migrations;
+
+import com.example.paf_backend_2025.services.ProgressRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Builds the day/week/month progress buckets for all existing history the
+ * first time the rollups are deployed. Completion is recorded in the
+ * migrations collection, so buckets written by live updates before or
+ * during the backfill don't stop it, and a run cut short starts over on the
+ * next boot. Later gaps are repaired by the catch-up job or an explicit
+ * rebuild.
+ */
+@Component
+public class ProgressRollupMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressRollupMigration.class);
+
+    private final ProgressRollupService progressRollupService;
+
+    @Value("${app.migrations.enabled:true}")
+    private boolean enabled;
+
+    public ProgressRollupMigration(ProgressRollupService progressRollupService) {
+        this.progressRollupService = progressRollupService;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (progressRollupService.isBackfilled()) {
+                return;
+            }
+            LocalDate first = progressRollupService.firstUpdateDay();
+            if (first != null) {
+                // A day past the server's today so it also covers today in any analytics time zone
+                long written = progressRollupService.rebuild(first, LocalDate.now().plusDays(1));
+                if (written < 0) {
+                    log.warn("Progress rollup backfill skipped: another rebuild is running; retrying on next start");
+                    return;
+                }
+                log.info("Backfilled {} progress buckets from {}", written, first);
+            }
+            progressRollupService.markBackfilled();
+        } catch (RuntimeException e) {
+            log.error("Progress rollup backfill failed", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.paf_backend_2025.migrations;
+
+import com.example.paf_backend_2025.services.ProgressAnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds updates recorded before the analytics existed to the progress stats.
+ * Completion is recorded in the migrations collection, so once it has run
+ * through this is a single lookup; an interrupted run resumes with the
+ * documents it had not seeded yet.
+ */
+@Component
+public class ProgressStatsMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressStatsMigration.class);
+
+    private final ProgressAnalyticsService progressAnalyticsService;
+
+    @Value("${app.migrations.enabled:true}")
+    private boolean enabled;
+
+    public ProgressStatsMigration(ProgressAnalyticsService progressAnalyticsService) {
+        this.progressAnalyticsService = progressAnalyticsService;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long seeded = progressAnalyticsService.seed();
+            if (seeded > 0) {
+                log.info("Seeded progress analytics for {} users", seeded);
+            }
+        } catch (RuntimeException e) {
+            log.error("Progress analytics backfill failed", e);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.paf_backend_2025.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -10,18 +12,24 @@ import java.util.List;
 /**
  * Represents an application user in the system.
  */
+@CompoundIndex(name = "directory_idx", def = "{'deleteStatus': 1, 'createdAt': -1, '_id': -1}")
 @Document(collection = "app_users")
 public class AppUser {
 
     @Id
     private String id;
 
+    // Text index for user search; a username hit outranks a name hit, which outranks the bio
+    @TextIndexed(weight = 2)
     private String firstName;
+    @TextIndexed(weight = 2)
     private String lastName;
+    @TextIndexed(weight = 3)
     private String username;
     private String email;
     private String contactNumber;
     private String password;
+    @TextIndexed
     private String bio;
     private String profileImageUrl;
 
@@ -39,6 +47,13 @@ public class AppUser {
     @DBRef
     private List<AppUser> following;
 
+    // Set once the user has too many followers for fan-out-on-write timelines
+    private boolean fanOutOnRead;
+
+    // Maintained with $inc by FollowService
+    private long followerCount;
+    private long followingCount;
+
     public AppUser() {
         this.createdAt = new Date();
         this.updatedAt = new Date();
@@ -159,6 +174,30 @@ public class AppUser {
         this.following = following;
     }
 
+    public boolean isFanOutOnRead() {
+        return fanOutOnRead;
+    }
+
+    public void setFanOutOnRead(boolean fanOutOnRead) {
+        this.fanOutOnRead = fanOutOnRead;
+    }
+
+    public long getFollowerCount() {
+        return followerCount;
+    }
+
+    public void setFollowerCount(long followerCount) {
+        this.followerCount = followerCount;
+    }
+
+    public long getFollowingCount() {
+        return followingCount;
+    }
+
+    public void setFollowingCount(long followingCount) {
+        this.followingCount = followingCount;
+    }
+
     // New Getters and Setters
 
     public String getGender() {
@@ -1,10 +1,19 @@
 package com.example.paf_backend_2025.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 
+@CompoundIndexes({
+        // Top-level comments of a post in time order (its prefix also serves per-post counts),
+        // and the replies under one comment
+        @CompoundIndex(name = "post_thread_idx", def = "{'post.$id': 1, 'deleteStatus': 1, 'parentId': 1, 'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "replies_idx", def = "{'parentId': 1, 'deleteStatus': 1, 'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "user_idx", def = "{'user.$id': 1, 'deleteStatus': 1}")
+})
 @Document(collection = "comments")
 public class Comment {
     @Id
@@ -14,6 +23,9 @@ public class Comment {
     private Date updatedAt;
     private boolean deleteStatus;
 
+    // Top-level comment this one replies to; threads are one level deep
+    private String parentId;
+
     @DBRef
     private AppUser user;
 
@@ -59,6 +71,14 @@ public class Comment {
         this.updatedAt = updatedAt;
     }
 
+    public String getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+
     public boolean isDeleteStatus() {
         return deleteStatus;
     }
@@ -1,22 +1,26 @@
 package com.example.paf_backend_2025.models;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
 
+/**
+ * A follow edge stored as a plain id pair. FollowService upserts on the pair;
+ * the unique (followerId, followingId) index backing it is built by
+ * FollowPairMigration once legacy DBRef documents are converted.
+ */
+@CompoundIndex(name = "following_idx", def = "{'followingId': 1, 'followerId': 1}")
 @Document(collection = "follows")
 public class Follow {
 
     @Id
     private String id;
 
-    @DBRef
-    private AppUser follower;
+    private String followerId;
 
-    @DBRef
-    private AppUser following;
+    private String followingId;
 
     private Date followedAt;
 
@@ -24,9 +28,9 @@ public class Follow {
         this.followedAt = new Date();
     }
 
-    public Follow(AppUser follower, AppUser following) {
-        this.follower = follower;
-        this.following = following;
+    public Follow(String followerId, String followingId) {
+        this.followerId = followerId;
+        this.followingId = followingId;
         this.followedAt = new Date();
     }
 
@@ -35,20 +39,20 @@ public class Follow {
         return id;
     }
 
-    public AppUser getFollower() {
-        return follower;
+    public String getFollowerId() {
+        return followerId;
     }
 
-    public void setFollower(AppUser follower) {
-        this.follower = follower;
+    public void setFollowerId(String followerId) {
+        this.followerId = followerId;
     }
 
-    public AppUser getFollowing() {
-        return following;
+    public String getFollowingId() {
+        return followingId;
     }
 
-    public void setFollowing(AppUser following) {
-        this.following = following;
+    public void setFollowingId(String followingId) {
+        this.followingId = followingId;
     }
 
     public Date getFollowedAt() {
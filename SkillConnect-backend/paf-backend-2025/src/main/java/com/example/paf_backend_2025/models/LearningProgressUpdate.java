@@ -1,10 +1,17 @@
 package com.example.paf_backend_2025.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 
+@CompoundIndexes({
+        @CompoundIndex(name = "user_idx", def = "{'user.$id': 1, 'deleteStatus': 1}"),
+        // createdAt ranges scanned by the progress rollup rebuild
+        @CompoundIndex(name = "created_idx", def = "{'deleteStatus': 1, 'createdAt': 1}")
+})
 @Document(collection = "learning_progress_updates")
 public class LearningProgressUpdate {
     @Id
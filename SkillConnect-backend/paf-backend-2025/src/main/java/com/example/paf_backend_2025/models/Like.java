@@ -1,10 +1,13 @@
 package com.example.paf_backend_2025.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 
+// LikeService upserts on (user, post); the unique index backing it is built by LikeUniquenessMigration once duplicates are removed
+@CompoundIndex(name = "post_idx", def = "{'post.$id': 1}")
 @Document(collection = "likes")
 public class Like {
     @Id
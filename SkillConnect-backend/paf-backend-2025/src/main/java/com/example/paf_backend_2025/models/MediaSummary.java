@@ -0,0 +1,49 @@
+package com.example.paf_backend_2025.models;
+
+/**
+ * Embeddable copy of a MediaType's display fields.
+ */
+public class MediaSummary {
+    private String id;
+    private String type;
+    private String url;
+
+    public MediaSummary() {
+    }
+
+    public static MediaSummary from(MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        MediaSummary summary = new MediaSummary();
+        summary.setId(mediaType.getId());
+        summary.setType(mediaType.getType());
+        summary.setUrl(mediaType.getUrl());
+        return summary;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.paf_backend_2025.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -10,6 +11,8 @@ public class MediaType {
     private String id;
     private String type; // image, video
     private String url;
+    // Owning post; backs the per-post media lookup
+    @Indexed(name = "post_id_idx")
     private String postId;
     @DBRef
     private Post post;
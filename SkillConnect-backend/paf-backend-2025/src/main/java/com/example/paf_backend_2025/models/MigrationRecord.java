@@ -0,0 +1,46 @@
+package com.example.paf_backend_2025.models;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Progress of one named one-off backfill, so it runs to completion exactly
+ * once however many times (or on however many nodes) the app starts.
+ * A backfill that splits history from live writes records the split in
+ * boundary: ids below it are the backfill's, the rest are applied live.
+ */
+@Document(collection = "migrations")
+public class MigrationRecord {
+    @Id
+    private String id;
+    private ObjectId boundary;
+    private Date completedAt;
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public ObjectId getBoundary() {
+        return boundary;
+    }
+
+    public void setBoundary(ObjectId boundary) {
+        this.boundary = boundary;
+    }
+
+    public Date getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Date completedAt) {
+        this.completedAt = completedAt;
+    }
+}
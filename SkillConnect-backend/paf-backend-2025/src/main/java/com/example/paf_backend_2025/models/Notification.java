@@ -1,23 +1,43 @@
 package com.example.paf_backend_2025.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
+import java.util.List;
 
 @Document(collection = "notifications")
+@CompoundIndexes({
+        @CompoundIndex(name = "recipient_created_idx", def = "{'notifiedTo.$id': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "recipient_unread_idx", def = "{'notifiedTo.$id': 1, 'read': 1, 'createdAt': -1}"),
+        @CompoundIndex(name = "coalesce_key_idx", def = "{'coalesceKey': 1}", unique = true, sparse = true)
+})
 public class Notification {
     @Id
     private String id;
 
-    @DBRef
+    // Lazy so listing a user's notifications never resolves the same user once per row
+    @DBRef(lazy = true)
     private AppUser notifiedTo;
 
     private String title;
     private String message;
+    private boolean read;
     private Date createdAt;
 
+    // Set on coalesced notifications: one document per recipient, type and target per window
+    private String type;
+    private String targetId;
+    private String coalesceKey;         // recipient|type|target|window start millis
+    private List<String> actorIds;      // Distinct actors; written only, actorCount counts them
+    private int actorCount;
+    private List<String> sampleActors;
+    private Date windowStart;
+
     public Notification() {
         this.createdAt = new Date();
     }
@@ -27,6 +47,7 @@ public class Notification {
         return id;
     }
 
+    @JsonIgnore
     public AppUser getNotifiedTo() {
         return notifiedTo;
     }
@@ -51,6 +72,14 @@ public class Notification {
         this.message = message;
     }
 
+    public boolean isRead() {
+        return read;
+    }
+
+    public void setRead(boolean read) {
+        this.read = read;
+    }
+
     public Date getCreatedAt() {
         return createdAt;
     }
@@ -58,4 +87,62 @@ public class Notification {
     public void setCreatedAt(Date createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(String targetId) {
+        this.targetId = targetId;
+    }
+
+    @JsonIgnore
+    public String getCoalesceKey() {
+        return coalesceKey;
+    }
+
+    public void setCoalesceKey(String coalesceKey) {
+        this.coalesceKey = coalesceKey;
+    }
+
+    @JsonIgnore
+    public List<String> getActorIds() {
+        return actorIds;
+    }
+
+    public void setActorIds(List<String> actorIds) {
+        this.actorIds = actorIds;
+    }
+
+    public int getActorCount() {
+        return actorCount;
+    }
+
+    public void setActorCount(int actorCount) {
+        this.actorCount = actorCount;
+    }
+
+    public List<String> getSampleActors() {
+        return sampleActors;
+    }
+
+    public void setSampleActors(List<String> sampleActors) {
+        this.sampleActors = sampleActors;
+    }
+
+    public Date getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(Date windowStart) {
+        this.windowStart = windowStart;
+    }
 }
\ No newline at end of file
@@ -1,12 +1,21 @@
 package com.example.paf_backend_2025.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.util.Date;
 import java.util.List;
 
 @Document(collection = "posts")
+@CompoundIndexes({
+        @CompoundIndex(name = "live_feed_idx", def = "{'deleteStatus': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "author_idx", def = "{'author._id': 1}"),
+        @CompoundIndex(name = "tagged_idx", def = "{'tagged._id': 1}"),
+        @CompoundIndex(name = "user_idx", def = "{'user.$id': 1, 'deleteStatus': 1}")
+})
 public class Post {
     @Id
     private String id;
@@ -15,15 +24,24 @@ public class Post {
     private Date createdAt;
     private Date updatedAt;
 
-    @DBRef
+    // References are kept for writes and owner queries; reads use the embedded summaries below
+    @DBRef(lazy = true)
     private AppUser user;
 
-    @DBRef
+    @DBRef(lazy = true)
     private List<MediaType> mediaTypes;
 
-    @DBRef
+    @DBRef(lazy = true)
     private List<AppUser> taggedUsers;
 
+    private UserSummary author;
+    private List<MediaSummary> media;
+    private List<UserSummary> tagged;
+
+    // Maintained with $inc by LikeService/CommentService; PostCounterService repairs drift
+    private long likeCount;
+    private long commentCount;
+
     public Post() {
         this.createdAt = new Date();
         this.updatedAt = new Date();
@@ -71,6 +89,7 @@ public class Post {
         this.updatedAt = updatedAt;
     }
 
+    @JsonIgnore
     public AppUser getUser() {
         return user;
     }
@@ -79,6 +98,7 @@ public class Post {
         this.user = user;
     }
 
+    @JsonIgnore
     public List<MediaType> getMediaTypes() {
         return mediaTypes;
     }
@@ -87,6 +107,7 @@ public class Post {
         this.mediaTypes = mediaTypes;
     }
 
+    @JsonIgnore
     public List<AppUser> getTaggedUsers() {
         return taggedUsers;
     }
@@ -94,4 +115,44 @@ public class Post {
     public void setTaggedUsers(List<AppUser> taggedUsers) {
         this.taggedUsers = taggedUsers;
     }
-}
\ No newline at end of file
+
+    public UserSummary getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(UserSummary author) {
+        this.author = author;
+    }
+
+    public List<MediaSummary> getMedia() {
+        return media;
+    }
+
+    public void setMedia(List<MediaSummary> media) {
+        this.media = media;
+    }
+
+    public List<UserSummary> getTagged() {
+        return tagged;
+    }
+
+    public void setTagged(List<UserSummary> tagged) {
+        this.tagged = tagged;
+    }
+
+    public long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(long likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public long getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(long commentCount) {
+        this.commentCount = commentCount;
+    }
+}
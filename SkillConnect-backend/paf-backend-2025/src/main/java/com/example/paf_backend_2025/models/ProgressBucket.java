@@ -0,0 +1,94 @@
+package com.example.paf_backend_2025.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Learning-progress totals for one day, week (starting Monday) or month,
+ * either for one user (scope is the user id) or for everyone (scope "all").
+ * The id is scope:granularity:yyyy-MM-dd of the period start, so concurrent
+ * upserts of the same bucket cannot create duplicates.
+ */
+@Document(collection = "progress_buckets")
+@CompoundIndex(name = "scope_range_idx", def = "{'scope': 1, 'granularity': 1, 'start': 1}")
+public class ProgressBucket {
+    @Id
+    private String id;
+    private String scope;
+    private String granularity;     // day, week or month
+    private Date start;             // Period start, midnight in the analytics time zone
+    private long count;
+    private double estimatedTime;
+    private double completedProgress;
+    private Map<String, ProgressStats.SkillTotals> skills = new HashMap<>();
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public Date getStart() {
+        return start;
+    }
+
+    public void setStart(Date start) {
+        this.start = start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getEstimatedTime() {
+        return estimatedTime;
+    }
+
+    public void setEstimatedTime(double estimatedTime) {
+        this.estimatedTime = estimatedTime;
+    }
+
+    public double getCompletedProgress() {
+        return completedProgress;
+    }
+
+    public void setCompletedProgress(double completedProgress) {
+        this.completedProgress = completedProgress;
+    }
+
+    public Map<String, ProgressStats.SkillTotals> getSkills() {
+        return skills;
+    }
+
+    public void setSkills(Map<String, ProgressStats.SkillTotals> skills) {
+        this.skills = skills;
+    }
+}
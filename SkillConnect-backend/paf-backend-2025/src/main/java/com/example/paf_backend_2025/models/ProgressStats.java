@@ -0,0 +1,185 @@
+package com.example.paf_backend_2025.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running learning-progress totals for one user, keyed by the user's id.
+ * Kept up to date by ProgressAnalyticsService as updates are created, edited
+ * and deleted. Days are calendar days in the configured analytics time zone,
+ * formatted yyyy-MM-dd.
+ */
+@Document(collection = "progress_stats")
+public class ProgressStats {
+    @Id
+    private String id;
+    private long entryCount;
+    private double estimatedTime;
+    private double completedProgress;
+    private long activeDays;
+    private String firstActiveDay;
+    private String lastActiveDay;
+    private int currentStreak;      // Consecutive active days ending on lastActiveDay
+    private int longestStreak;
+    private Map<String, SkillTotals> skills = new HashMap<>();  // Keyed by SkillTotals.key(templateType)
+    private Date updatedAt;
+    private long rev;               // Version checked by the backfill before it writes
+    private boolean seeded;         // Updates from before the backfill boundary are included
+
+    public static class SkillTotals {
+        private String templateType;
+        private long count;
+        private double estimatedTime;
+        private double completedProgress;
+
+        // Map keys are used in field paths, so they may not contain '.' or start with '$'
+        public static String key(String templateType) {
+            if (templateType == null || templateType.isBlank()) {
+                return "other";
+            }
+            return templateType.replace('.', '_').replace('$', '_');
+        }
+
+        // Getters and Setters
+        public String getTemplateType() {
+            return templateType;
+        }
+
+        public void setTemplateType(String templateType) {
+            this.templateType = templateType;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getEstimatedTime() {
+            return estimatedTime;
+        }
+
+        public void setEstimatedTime(double estimatedTime) {
+            this.estimatedTime = estimatedTime;
+        }
+
+        public double getCompletedProgress() {
+            return completedProgress;
+        }
+
+        public void setCompletedProgress(double completedProgress) {
+            this.completedProgress = completedProgress;
+        }
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public double getEstimatedTime() {
+        return estimatedTime;
+    }
+
+    public void setEstimatedTime(double estimatedTime) {
+        this.estimatedTime = estimatedTime;
+    }
+
+    public double getCompletedProgress() {
+        return completedProgress;
+    }
+
+    public void setCompletedProgress(double completedProgress) {
+        this.completedProgress = completedProgress;
+    }
+
+    public long getActiveDays() {
+        return activeDays;
+    }
+
+    public void setActiveDays(long activeDays) {
+        this.activeDays = activeDays;
+    }
+
+    public String getFirstActiveDay() {
+        return firstActiveDay;
+    }
+
+    public void setFirstActiveDay(String firstActiveDay) {
+        this.firstActiveDay = firstActiveDay;
+    }
+
+    public String getLastActiveDay() {
+        return lastActiveDay;
+    }
+
+    public void setLastActiveDay(String lastActiveDay) {
+        this.lastActiveDay = lastActiveDay;
+    }
+
+    public int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public void setCurrentStreak(int currentStreak) {
+        this.currentStreak = currentStreak;
+    }
+
+    public int getLongestStreak() {
+        return longestStreak;
+    }
+
+    public void setLongestStreak(int longestStreak) {
+        this.longestStreak = longestStreak;
+    }
+
+    public Map<String, SkillTotals> getSkills() {
+        return skills;
+    }
+
+    public void setSkills(Map<String, SkillTotals> skills) {
+        this.skills = skills;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getRev() {
+        return rev;
+    }
+
+    public void setRev(long rev) {
+        this.rev = rev;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public void setSeeded(boolean seeded) {
+        this.seeded = seeded;
+    }
+}
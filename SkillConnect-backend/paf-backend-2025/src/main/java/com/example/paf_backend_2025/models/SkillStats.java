@@ -0,0 +1,88 @@
+package com.example.paf_backend_2025.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Running totals across all users for one templateType; the id is
+ * ProgressStats.SkillTotals.key(templateType).
+ */
+@Document(collection = "progress_skill_stats")
+public class SkillStats {
+    @Id
+    private String id;
+    private String templateType;
+    private long count;
+    private double estimatedTime;
+    private double completedProgress;
+    private Date updatedAt;
+    private long rev;
+    private boolean seeded;
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTemplateType() {
+        return templateType;
+    }
+
+    public void setTemplateType(String templateType) {
+        this.templateType = templateType;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getEstimatedTime() {
+        return estimatedTime;
+    }
+
+    public void setEstimatedTime(double estimatedTime) {
+        this.estimatedTime = estimatedTime;
+    }
+
+    public double getCompletedProgress() {
+        return completedProgress;
+    }
+
+    public void setCompletedProgress(double completedProgress) {
+        this.completedProgress = completedProgress;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getRev() {
+        return rev;
+    }
+
+    public void setRev(long rev) {
+        this.rev = rev;
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public void setSeeded(boolean seeded) {
+        this.seeded = seeded;
+    }
+}
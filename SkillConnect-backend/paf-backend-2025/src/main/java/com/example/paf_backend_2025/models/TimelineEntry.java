@@ -0,0 +1,77 @@
+package com.example.paf_backend_2025.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * One post pushed into one user's home timeline (fan-out-on-write).
+ * createdAt is the post's creation time so timeline order matches the feed.
+ */
+@Document(collection = "timeline_entries")
+@CompoundIndexes({
+        @CompoundIndex(name = "owner_post_unique_idx", def = "{'ownerId': 1, 'postId': 1}", unique = true),
+        @CompoundIndex(name = "owner_timeline_idx", def = "{'ownerId': 1, 'createdAt': -1, 'postId': -1}")
+})
+public class TimelineEntry {
+    @Id
+    private String id;
+    private String ownerId;
+    private String postId;
+    private String authorId;
+    private Date createdAt;
+
+    public TimelineEntry() {
+    }
+
+    public TimelineEntry(String ownerId, String postId, String authorId, Date createdAt) {
+        this.ownerId = ownerId;
+        this.postId = postId;
+        this.authorId = authorId;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getPostId() {
+        return postId;
+    }
+
+    public void setPostId(String postId) {
+        this.postId = postId;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(String authorId) {
+        this.authorId = authorId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
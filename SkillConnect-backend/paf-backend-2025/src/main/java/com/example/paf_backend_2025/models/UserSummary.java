@@ -0,0 +1,70 @@
+package com.example.paf_backend_2025.models;
+
+/**
+ * Compact, embeddable view of an AppUser for documents that display an author.
+ * Holds only what a card needs, never credentials or contact details.
+ */
+public class UserSummary {
+    private String id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    private String profileImageUrl;
+
+    public UserSummary() {
+    }
+
+    public static UserSummary from(AppUser user) {
+        if (user == null) {
+            return null;
+        }
+        UserSummary summary = new UserSummary();
+        summary.setId(user.getId());
+        summary.setUsername(user.getUsername());
+        summary.setFirstName(user.getFirstName());
+        summary.setLastName(user.getLastName());
+        summary.setProfileImageUrl(user.getProfileImageUrl());
+        return summary;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getProfileImageUrl() {
+        return profileImageUrl;
+    }
+
+    public void setProfileImageUrl(String profileImageUrl) {
+        this.profileImageUrl = profileImageUrl;
+    }
+}
@@ -9,7 +9,6 @@ import java.util.Optional;
 
 @Repository
 public interface CommentRepository extends MongoRepository<Comment, String> {
-    List<Comment> findByPostIdAndDeleteStatusFalse(String postId);
     List<Comment> findByUserIdAndDeleteStatusFalse(String userId);
     Optional<Comment> findByIdAndDeleteStatusFalse(String id);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.paf_backend_2025.repositories;
+
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * Aggregation helpers for DBRef fields. Aggregation field paths may not start
+ * with '$', so "$post.$id" cannot be used directly inside a pipeline stage.
+ */
+public final class DBRefExpressions {
+
+    private DBRefExpressions() {
+    }
+
+    /**
+     * Expression yielding the $id of the DBRef stored in the given field.
+     */
+    public static Document refId(String field) {
+        return new Document("$arrayElemAt", List.of(new Document("$map", new Document()
+                .append("input", new Document("$filter", new Document()
+                        .append("input", new Document("$objectToArray", "$" + field))
+                        .append("cond", new Document("$eq", List.of("$$this.k", new Document("$literal", "$id"))))))
+                .append("in", "$$this.v")), 0));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.paf_backend_2025.repositories;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque (createdAt, id) position used for keyset pagination.
+ * The token is the base64url form of "millis:id", so clients just echo it back.
+ */
+public class KeysetCursor {
+
+    private final Date createdAt;
+    private final String id;
+
+    public KeysetCursor(Date createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static String encode(Date createdAt, String id) {
+        String raw = createdAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null for a missing token so callers can treat it as "first page".
+     */
+    public static KeysetCursor parse(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new KeysetCursor(new Date(Long.parseLong(raw.substring(0, sep))), raw.substring(sep + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Rows strictly after this cursor when sorting newest first.
+     */
+    public Criteria before(String dateField) {
+        return before(dateField, "id");
+    }
+
+    public Criteria before(String dateField, String idField) {
+        return new Criteria().orOperator(
+                Criteria.where(dateField).lt(createdAt),
+                new Criteria().andOperator(
+                        Criteria.where(dateField).is(createdAt),
+                        Criteria.where(idField).lt(id)));
+    }
+
+    /**
+     * Rows strictly after this cursor when sorting oldest first.
+     */
+    public Criteria after(String dateField) {
+        return new Criteria().orOperator(
+                Criteria.where(dateField).gt(createdAt),
+                new Criteria().andOperator(
+                        Criteria.where(dateField).is(createdAt),
+                        Criteria.where("id").gt(id)));
+    }
+
+    /**
+     * after(dateField) for queries on raw documents, where "id" is not mapped
+     * to an ObjectId _id.
+     */
+    public Criteria afterObjectId(String dateField) {
+        return new Criteria().orOperator(
+                Criteria.where(dateField).gt(createdAt),
+                new Criteria().andOperator(
+                        Criteria.where(dateField).is(createdAt),
+                        Criteria.where("_id").gt(new ObjectId(id))));
+    }
+
+    public static Sort newestFirst(String dateField) {
+        return newestFirst(dateField, "id");
+    }
+
+    public static Sort newestFirst(String dateField, String idField) {
+        return Sort.by(Sort.Order.desc(dateField), Sort.Order.desc(idField));
+    }
+
+    public static Sort oldestFirst(String dateField) {
+        return Sort.by(Sort.Order.asc(dateField), Sort.Order.asc("id"));
+    }
+}
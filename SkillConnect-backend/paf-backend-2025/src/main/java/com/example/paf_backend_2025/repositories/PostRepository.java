@@ -9,7 +9,6 @@ import java.util.Optional;
 
 @Repository
 public interface PostRepository extends MongoRepository<Post, String> {
-    List<Post> findByDeleteStatusFalse();
     List<Post> findByUserIdAndDeleteStatusFalse(String userId);
     Optional<Post> findByIdAndDeleteStatusFalse(String id);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.example.paf_backend_2025.repositories;
+
+import com.example.paf_backend_2025.models.TimelineEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TimelineEntryRepository extends MongoRepository<TimelineEntry, String> {
+    void deleteByPostId(String postId);
+}
@@ -0,0 +1,96 @@
+package com.example.paf_backend_2025.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.DBRef;
+import com.mongodb.ReadPreference;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a user's posts, comments, likes and progress updates as NDJSON, one
+ * record per line with a "type" field. Each collection is read through a
+ * cursor and every record is written as soon as it is read, so memory use does
+ * not depend on how much history the user has.
+ * <p>
+ * Records are the stored documents with ObjectIds and DBRefs written as plain
+ * id strings; the owning user reference is left out.
+ */
+@Service
+public class ActivityExportService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectWriter writer;
+    private final ObjectMapper objectMapper;
+
+    public ActivityExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        // Let the generator's buffer decide when to flush instead of flushing every line
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public void export(String userId, OutputStream out) throws IOException {
+        ObjectId owner = new ObjectId(userId);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            write(generator, "post", "posts", Criteria.where("user.$id").is(owner).and("deleteStatus").is(false));
+            write(generator, "comment", "comments", Criteria.where("user.$id").is(owner).and("deleteStatus").is(false));
+            write(generator, "like", "likes", Criteria.where("user.$id").is(owner));
+            write(generator, "progress", "learning_progress_updates",
+                    Criteria.where("user.$id").is(owner).and("deleteStatus").is(false));
+            generator.writeRaw('\n');
+        }
+    }
+
+    private void write(JsonGenerator generator, String type, String collection, Criteria criteria) throws IOException {
+        Query query = new Query(criteria).withReadPreference(ReadPreference.secondaryPreferred());
+        query.fields().exclude("user").exclude("deleteStatus").exclude("_class");
+        try (var docs = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document doc : (Iterable<Document>) docs::iterator) {
+                Map<String, Object> record = new LinkedHashMap<>();
+                record.put("type", type);
+                record.putAll(toPlain(doc));
+                writer.writeValue(generator, record);
+            }
+        }
+    }
+
+    private static Map<String, Object> toPlain(Document doc) {
+        Map<String, Object> plain = new LinkedHashMap<>();
+        doc.forEach((key, value) -> plain.put("_id".equals(key) ? "id" : key, toPlain(value)));
+        return plain;
+    }
+
+    private static Object toPlain(Object value) {
+        if (value instanceof ObjectId id) {
+            return id.toHexString();
+        }
+        if (value instanceof DBRef ref) {
+            return toPlain(ref.getId());
+        }
+        if (value instanceof Document doc) {
+            return toPlain(doc);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> plain = new ArrayList<>(list.size());
+            list.forEach(item -> plain.add(toPlain(item)));
+            return plain;
+        }
+        return value;
+    }
+}
@@ -1,13 +1,22 @@
 package com.example.paf_backend_2025.services;
 
 import com.example.paf_backend_2025.dtos.AppUserDTO;
+import com.example.paf_backend_2025.dtos.CacheStatsDTO;
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.LoginDTO;
 import com.example.paf_backend_2025.dtos.UserProfileDTO;
 import com.example.paf_backend_2025.models.AppUser;
 import com.example.paf_backend_2025.repositories.AppUserRepository;
+import com.example.paf_backend_2025.repositories.KeysetCursor;
 import com.example.paf_backend_2025.security.JwtAuthResponse;
 import com.example.paf_backend_2025.security.JwtTokenProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -25,15 +34,40 @@ public class AppUserService {
 
     private final AppUserRepository appUserRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PostSummaryService postSummaryService;
+    private final MongoTemplate mongoTemplate;
+    private final UserSearchService userSearchService;
+    private final UserCache userCache;
+    private final SingleFlight<String, UserProfileDTO> profileLoads;
 
+    private static final String[] PROFILE_FIELDS = {
+            "firstName", "lastName", "bio", "profileImageUrl", "username", "email", "contactNumber",
+            "publicStatus", "createdAt", "address", "birthday", "gender"
+    };
+
+    @Value("${app.users.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.users.max-page-size:100}")
+    private int maxPageSize;
 
     @Autowired
     public AppUserService(AppUserRepository appUserRepository,
-                          PasswordEncoder passwordEncoder
+                          PasswordEncoder passwordEncoder,
+                          PostSummaryService postSummaryService,
+                          MongoTemplate mongoTemplate,
+                          UserSearchService userSearchService,
+                          UserCache userCache,
+                          @Value("${app.single-flight.negative-ttl-ms:2000}") long negativeTtlMillis,
+                          @Value("${app.single-flight.negative-max-size:10000}") long negativeMaxSize
                           ) {
         this.appUserRepository = appUserRepository;
         this.passwordEncoder = passwordEncoder;
-
+        this.postSummaryService = postSummaryService;
+        this.mongoTemplate = mongoTemplate;
+        this.userSearchService = userSearchService;
+        this.userCache = userCache;
+        this.profileLoads = new SingleFlight<>(negativeTtlMillis, negativeMaxSize);
     }
 
 
@@ -60,67 +94,123 @@ public class AppUserService {
         user.setGender(appUserDTO.getGender());
         user.setAddress(appUserDTO.getAddress());
         user.setBirthday(appUserDTO.getBirthday());
-        return appUserRepository.save(user);
+        AppUser savedUser = appUserRepository.save(user);
+        userSearchService.index(savedUser);
+        return savedUser;
     }
 
+    /**
+     * First page of the directory. The old endpoint used to load every user;
+     * it is now bounded like the paginated one.
+     */
     public List<UserProfileDTO> getAllUsers() {
-        return appUserRepository.findAll().stream()
-                .filter(user -> !user.isDeleteStatus())
+        return getDirectory(null, null).getItems();
+    }
+
+    /**
+     * Newest-first page of live users. deleteStatus is filtered by the
+     * directory_idx index and only the UserProfileDTO fields are fetched, so
+     * password hashes and the following DBRefs never leave the database.
+     */
+    public CursorPageDTO<UserProfileDTO> getDirectory(String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        KeysetCursor position = KeysetCursor.parse(cursor);
+
+        Criteria criteria = Criteria.where("deleteStatus").is(false);
+        if (position != null) {
+            criteria = criteria.andOperator(position.before("createdAt"));
+        }
+        Query query = new Query(criteria)
+                .with(KeysetCursor.newestFirst("createdAt"))
+                .limit(pageSize + 1);
+        query.fields().include(PROFILE_FIELDS);
+
+        List<AppUser> users = mongoTemplate.find(query, AppUser.class);
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            AppUser last = users.get(pageSize - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        List<UserProfileDTO> items = users.stream()
                 .map(this::convertToUserProfileDTO)
                 .collect(Collectors.toList());
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    public List<CacheStatsDTO> getCacheStats() {
+        return userCache.getStats();
     }
 
+    /**
+     * Full-text search over username, names and bio, best matches first.
+     */
+    public List<UserProfileDTO> searchUsers(String q, Integer limit) {
+        return userSearchService.search(q, limit, PROFILE_FIELDS).stream()
+                .map(this::convertToUserProfileDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Cache misses for the same id share one query; unknown and deleted ids are negatively cached briefly
     public Optional<UserProfileDTO> getUserById(String id) {
+        return Optional.ofNullable(profileLoads.load(id,
+                key -> userCache.findProfile(key, this::loadProfile).orElse(null)));
+    }
+
+    private UserProfileDTO loadProfile(String id) {
         return appUserRepository.findById(id)
                 .filter(user -> !user.isDeleteStatus())
-                .map(this::convertToUserProfileDTO);
+                .map(this::convertToUserProfileDTO)
+                .orElse(null);
     }
 
+    /**
+     * Sets only the profile fields, so the follow counters and timeline flags
+     * that other services $inc/$set on the same document are never overwritten.
+     */
     public Optional<UserProfileDTO> updateUser(String id, AppUserDTO appUserDTO) {
-        return appUserRepository.findById(id)
-                .map(existingUser -> {
-
-                    if (!existingUser.isDeleteStatus()) {
-                        System.out.println("======= Before setting: " + appUserDTO.getProfileImageUrl());
-                        existingUser.setFirstName(appUserDTO.getFirstName());
-                        existingUser.setLastName(appUserDTO.getLastName());
-                        existingUser.setBio(appUserDTO.getBio());
-                        existingUser.setProfileImageUrl(appUserDTO.getProfileImageUrl());
-                        System.out.println("======= After setting: " + existingUser.getProfileImageUrl());
-                        existingUser.setContactNumber(appUserDTO.getContactNumber());
-                        existingUser.setPublicStatus(appUserDTO.isPublicStatus());
-                        existingUser.setUpdatedAt(new Date());
-                        existingUser.setGender(appUserDTO.getGender());
-                        existingUser.setAddress(appUserDTO.getAddress());
-                        existingUser.setBirthday(appUserDTO.getBirthday());
-                        // Only update password if it's provided
-                        if (appUserDTO.getPassword() != null && !appUserDTO.getPassword().isEmpty()) {
-                            existingUser.setPassword(passwordEncoder.encode(appUserDTO.getPassword()));
-                        }
-
-                        AppUser updatedUser = appUserRepository.save(existingUser);
-                        System.out.println("======= After save: " + updatedUser.getProfileImageUrl());
-                        return convertToUserProfileDTO(updatedUser);
-                    }
-                    return null;
-                });
+        Update update = new Update()
+                .set("firstName", appUserDTO.getFirstName())
+                .set("lastName", appUserDTO.getLastName())
+                .set("bio", appUserDTO.getBio())
+                .set("profileImageUrl", appUserDTO.getProfileImageUrl())
+                .set("contactNumber", appUserDTO.getContactNumber())
+                .set("publicStatus", appUserDTO.isPublicStatus())
+                .set("updatedAt", new Date())
+                .set("gender", appUserDTO.getGender())
+                .set("address", appUserDTO.getAddress())
+                .set("birthday", appUserDTO.getBirthday());
+        // Only update password if it's provided
+        if (appUserDTO.getPassword() != null && !appUserDTO.getPassword().isEmpty()) {
+            update.set("password", passwordEncoder.encode(appUserDTO.getPassword()));
+        }
+
+        AppUser updatedUser = mongoTemplate.findAndModify(live(id), update,
+                FindAndModifyOptions.options().returnNew(true), AppUser.class);
+        if (updatedUser == null) {
+            return Optional.empty();
+        }
+        userCache.invalidate(id);
+        postSummaryService.refreshAuthor(updatedUser);
+        userSearchService.index(updatedUser);
+        return Optional.of(convertToUserProfileDTO(updatedUser));
     }
 
     public boolean deleteUser(String id) {
-        return appUserRepository.findById(id)
-                .map(user -> {
-                    if (!user.isDeleteStatus()) {
-                        user.setDeleteStatus(true);
-                        user.setUpdatedAt(new Date());
-                        appUserRepository.save(user);
-                        return true;
-                    }
-                    return false;
-                }).orElse(false);
+        Update update = new Update().set("deleteStatus", true).set("updatedAt", new Date());
+        if (mongoTemplate.updateFirst(live(id), update, AppUser.class).getModifiedCount() == 0) {
+            return false;
+        }
+        userCache.invalidate(id);
+        userSearchService.remove(id);
+        return true;
+    }
+
+    private static Query live(String id) {
+        return Query.query(Criteria.where("id").is(id).and("deleteStatus").is(false));
     }
 
     private UserProfileDTO convertToUserProfileDTO(AppUser user) {
-        System.out.println("======= "+user.getProfileImageUrl());
         UserProfileDTO dto = new UserProfileDTO();
         dto.setId(user.getId());
         dto.setFirstName(user.getFirstName());
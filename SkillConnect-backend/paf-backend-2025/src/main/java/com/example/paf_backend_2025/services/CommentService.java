@@ -1,39 +1,171 @@
 package com.example.paf_backend_2025.services;
 
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.MediaTypeDTO;
 import com.example.paf_backend_2025.models.*;
 import com.example.paf_backend_2025.repositories.*;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class CommentService {
 
     private final CommentRepository commentRepository;
-    private final AppUserRepository appUserRepository;
+    private final UserCache userCache;
     private final PostRepository postRepository;
 
-    private final NotificationService notificationService;
+    private final MongoTemplate mongoTemplate;
+    private final PostCounterService postCounterService;
+
+    private final NotificationPublisher notificationPublisher;
+    private final ContentSearchService contentSearchService;
+
+    private static final String[] COMMENT_FIELDS = {"content", "createdAt", "updatedAt", "parentId", "user", "post"};
+
+    @Value("${app.comments.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.comments.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.comments.preview.default-size:2}")
+    private int defaultPreviewSize;
+
+    @Value("${app.comments.preview.max-size:10}")
+    private int maxPreviewSize;
+
+    @Value("${app.comments.preview.max-posts:50}")
+    private int maxPreviewPosts;
 
     @Autowired
     public CommentService(CommentRepository commentRepository,
-                          AppUserRepository appUserRepository,
-                          PostRepository postRepository,NotificationService notificationService) {
+                          UserCache userCache,
+                          PostRepository postRepository,
+                          MongoTemplate mongoTemplate,
+                          PostCounterService postCounterService,
+                          NotificationPublisher notificationPublisher,
+                          ContentSearchService contentSearchService) {
         this.commentRepository = commentRepository;
-        this.appUserRepository = appUserRepository;
+        this.userCache = userCache;
         this.postRepository = postRepository;
-        this.notificationService = notificationService;
+        this.mongoTemplate = mongoTemplate;
+        this.postCounterService = postCounterService;
+        this.notificationPublisher = notificationPublisher;
+        this.contentSearchService = contentSearchService;
     }
 
+    /**
+     * Every live comment on the post, replies included, oldest first. Kept for
+     * the old endpoint; new callers page with getThread and getReplies.
+     */
     public List<MediaTypeDTO.CommentResponseDTO> getCommentsByPost(String postId) {
-        return commentRepository.findByPostIdAndDeleteStatusFalse(postId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        if (!ObjectId.isValid(postId)) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("post.$id").is(new ObjectId(postId)).and("deleteStatus").is(false))
+                .with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")));
+        query.fields().include(COMMENT_FIELDS);
+        return toDTOs(mongoTemplate.find(query, Document.class, "comments"));
+    }
+
+    /**
+     * Top-level comments of a post, oldest first, each with its reply count.
+     */
+    public CursorPageDTO<MediaTypeDTO.CommentResponseDTO> getThread(String postId, String cursor, Integer limit) {
+        if (!ObjectId.isValid(postId)) {
+            return new CursorPageDTO<>(List.of(), null);
+        }
+        Criteria criteria = Criteria.where("post.$id").is(new ObjectId(postId))
+                .and("deleteStatus").is(false)
+                .and("parentId").is(null);
+        CursorPageDTO<MediaTypeDTO.CommentResponseDTO> page = loadPage(criteria, cursor, limit);
+        Map<String, Long> replyCounts = countReplies(page.getItems().stream()
+                .map(MediaTypeDTO.CommentResponseDTO::getId)
+                .collect(Collectors.toList()));
+        page.getItems().forEach(comment -> comment.setReplyCount(replyCounts.getOrDefault(comment.getId(), 0L)));
+        return page;
+    }
+
+    public CursorPageDTO<MediaTypeDTO.CommentResponseDTO> getReplies(String commentId, String cursor, Integer limit) {
+        return loadPage(Criteria.where("parentId").is(commentId).and("deleteStatus").is(false), cursor, limit);
+    }
+
+    /**
+     * Latest top-level comments of each post, newest first, for rendering a
+     * feed page. Every requested post is a key of the result; posts without
+     * comments map to an empty list.
+     */
+    public Map<String, List<MediaTypeDTO.CommentResponseDTO>> getPreviews(Collection<String> postIds, Integer size) {
+        Set<String> ids = postIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.size() > maxPreviewPosts) {
+            throw new IllegalArgumentException("At most " + maxPreviewPosts + " posts per request");
+        }
+        int perPost = size == null || size <= 0 ? defaultPreviewSize : Math.min(size, maxPreviewSize);
+        Map<String, List<MediaTypeDTO.CommentResponseDTO>> previews = new LinkedHashMap<>();
+        ids.forEach(id -> previews.put(id, new ArrayList<>()));
+        List<ObjectId> objectIds = ids.stream().filter(ObjectId::isValid).map(ObjectId::new).collect(Collectors.toList());
+        if (objectIds.isEmpty()) {
+            return previews;
+        }
+
+        // One pass over post_thread_idx; $topN (MongoDB 5.2+) keeps only the
+        // newest perPost comments of each post while grouping, so neither a
+        // full sort nor a per-post list of every comment is held in memory
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("post.$id").in(objectIds)
+                        .and("deleteStatus").is(false)
+                        .and("parentId").is(null)),
+                context -> new Document("$group", new Document("_id", DBRefExpressions.refId("post"))
+                        .append("comments", new Document("$topN", new Document()
+                                .append("n", perPost)
+                                .append("sortBy", new Document("createdAt", -1).append("_id", -1))
+                                .append("output", new Document()
+                                        .append("_id", "$_id")
+                                        .append("content", "$content")
+                                        .append("createdAt", "$createdAt")
+                                        .append("updatedAt", "$updatedAt")
+                                        .append("userId", DBRefExpressions.refId("user")))))));
+        List<Document> rows = mongoTemplate.aggregate(aggregation, "comments", Document.class).getMappedResults();
+
+        Set<String> authorIds = new HashSet<>();
+        for (Document row : rows) {
+            for (Document comment : row.getList("comments", Document.class)) {
+                ObjectId userId = comment.getObjectId("userId");
+                if (userId != null) {
+                    authorIds.add(userId.toHexString());
+                }
+            }
+        }
+        Map<String, AppUser> authors = userCache.findAllById(authorIds);
+        for (Document row : rows) {
+            String postId = row.getObjectId("_id").toHexString();
+            List<MediaTypeDTO.CommentResponseDTO> comments = previews.get(postId);
+            for (Document comment : row.getList("comments", Document.class)) {
+                ObjectId userId = comment.getObjectId("userId");
+                MediaTypeDTO.CommentResponseDTO dto = new MediaTypeDTO.CommentResponseDTO();
+                dto.setId(comment.getObjectId("_id").toHexString());
+                dto.setContent(comment.getString("content"));
+                dto.setCreatedAt(comment.getDate("createdAt"));
+                dto.setUpdatedAt(comment.getDate("updatedAt"));
+                dto.setUser(userId != null ? UserSummary.from(authors.get(userId.toHexString())) : null);
+                dto.setPostId(postId);
+                comments.add(dto);
+            }
+        }
+        return previews;
     }
 
     public List<MediaTypeDTO.CommentResponseDTO> getCommentsByUser(String userId) {
@@ -51,20 +183,27 @@ public class CommentService {
         Comment comment = new Comment();
         comment.setContent(commentDTO.getContent());
 
-        AppUser user = appUserRepository.findById(commentDTO.getUserId())
+        AppUser user = userCache.findById(commentDTO.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         comment.setUser(user);
 
         Post post = postRepository.findById(commentDTO.getPostId())
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         comment.setPost(post);
+        comment.setParentId(resolveParent(commentDTO.getParentId(), post.getId()));
 
         Comment savedComment = commentRepository.save(comment);
-        notificationService.createNotification(
-                post.getUser().getId(),
+        postCounterService.increment(post.getId(), PostCounterService.COMMENT_COUNT);
+        contentSearchService.indexComment(savedComment);
+        notificationPublisher.publish(new NotificationEvent(
+                post.getAuthor() != null ? post.getAuthor().getId() : post.getUser().getId(),
                 "You have a new comment for your post",
-                comment.getUser().getFirstName() + " has commented to your post"
-        );
+                comment.getUser().getFirstName() + " has commented to your post",
+                NotificationEvent.TYPE_COMMENT,
+                post.getId(),
+                comment.getUser().getId(),
+                comment.getUser().getFirstName()
+        ));
         return convertToDTO(savedComment);
     }
 
@@ -79,19 +218,109 @@ public class CommentService {
                     existingComment.setUpdatedAt(new Date());
 
                     Comment updatedComment = commentRepository.save(existingComment);
+                    contentSearchService.indexComment(updatedComment);
                     return convertToDTO(updatedComment);
                 });
     }
 
     public boolean deleteComment(String id) {
-        return commentRepository.findById(id)
-                .map(comment -> {
-                    comment.setDeleteStatus(true);
-                    comment.setUpdatedAt(new Date());
-                    commentRepository.save(comment);
-                    return true;
-                })
-                .orElse(false);
+        if (!ObjectId.isValid(id)) {
+            return false;
+        }
+        // Only the live -> deleted transition decrements, so repeated deletes are harmless
+        Query query = Query.query(Criteria.where("_id").is(new ObjectId(id)).and("deleteStatus").ne(true));
+        query.fields().include("post");
+        Document previous = mongoTemplate.findAndModify(query,
+                new Update().set("deleteStatus", true).set("updatedAt", new Date()), Document.class, "comments");
+        if (previous == null) {
+            return commentRepository.existsById(id);
+        }
+        contentSearchService.remove(ContentSearchService.TYPE_COMMENT, id);
+        DBRef post = previous.get("post", DBRef.class);
+        if (post != null) {
+            postCounterService.decrement(post.getId().toString(), PostCounterService.COMMENT_COUNT);
+        }
+        return true;
+    }
+
+    // Reads raw documents so neither the user nor the post DBRef is resolved per
+    // comment; authors for the whole page come from one batch lookup
+    private CursorPageDTO<MediaTypeDTO.CommentResponseDTO> loadPage(Criteria criteria, String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        KeysetCursor position = KeysetCursor.parse(cursor);
+        if (position != null) {
+            criteria = new Criteria().andOperator(criteria, position.afterObjectId("createdAt"));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("_id")))
+                .limit(pageSize + 1);
+        query.fields().include(COMMENT_FIELDS);
+
+        List<Document> docs = mongoTemplate.find(query, Document.class, "comments");
+        String nextCursor = null;
+        if (docs.size() > pageSize) {
+            docs = docs.subList(0, pageSize);
+            Document last = docs.get(pageSize - 1);
+            nextCursor = KeysetCursor.encode(last.getDate("createdAt"), last.getObjectId("_id").toHexString());
+        }
+        return new CursorPageDTO<>(toDTOs(docs), nextCursor);
+    }
+
+    private List<MediaTypeDTO.CommentResponseDTO> toDTOs(List<Document> docs) {
+        Map<String, AppUser> authors = userCache.findAllById(docs.stream()
+                .map(doc -> refId(doc, "user"))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        List<MediaTypeDTO.CommentResponseDTO> items = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            MediaTypeDTO.CommentResponseDTO dto = new MediaTypeDTO.CommentResponseDTO();
+            dto.setId(doc.getObjectId("_id").toHexString());
+            dto.setContent(doc.getString("content"));
+            dto.setCreatedAt(doc.getDate("createdAt"));
+            dto.setUpdatedAt(doc.getDate("updatedAt"));
+            dto.setUser(UserSummary.from(authors.get(refId(doc, "user"))));
+            dto.setPostId(refId(doc, "post"));
+            dto.setParentId(doc.getString("parentId"));
+            items.add(dto);
+        }
+        return items;
+    }
+
+    private Map<String, Long> countReplies(List<String> commentIds) {
+        if (commentIds.isEmpty()) {
+            return Map.of();
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("parentId").in(commentIds).and("deleteStatus").is(false)),
+                Aggregation.group("parentId").count().as("count"));
+        Map<String, Long> counts = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, "comments", Document.class).getMappedResults()) {
+            counts.put(row.getString("_id"), ((Number) row.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    // Replies to a reply are attached to its top-level comment, keeping threads one level deep
+    private String resolveParent(String parentId, String postId) {
+        if (parentId == null || parentId.isBlank()) {
+            return null;
+        }
+        if (!ObjectId.isValid(parentId)) {
+            throw new RuntimeException("Parent comment not found");
+        }
+        Query query = Query.query(Criteria.where("_id").is(new ObjectId(parentId)).and("deleteStatus").is(false));
+        query.fields().include("post", "parentId");
+        Document parent = mongoTemplate.findOne(query, Document.class, "comments");
+        if (parent == null || !postId.equals(refId(parent, "post"))) {
+            throw new RuntimeException("Parent comment not found");
+        }
+        String grandparent = parent.getString("parentId");
+        return grandparent != null ? grandparent : parentId;
+    }
+
+    private static String refId(Document doc, String field) {
+        Object ref = doc.get(field);
+        return ref instanceof DBRef dbRef && dbRef.getId() != null ? dbRef.getId().toString() : null;
     }
 
     private MediaTypeDTO.CommentResponseDTO convertToDTO(Comment comment) {
@@ -100,8 +329,9 @@ public class CommentService {
         dto.setContent(comment.getContent());
         dto.setCreatedAt(comment.getCreatedAt());
         dto.setUpdatedAt(comment.getUpdatedAt());
-        dto.setUser(comment.getUser());
-        dto.setPost(comment.getPost());
+        dto.setUser(UserSummary.from(comment.getUser()));
+        dto.setPostId(comment.getPost() != null ? comment.getPost().getId() : null);
+        dto.setParentId(comment.getParentId());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,586 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
+import com.example.paf_backend_2025.dtos.SearchHitDTO;
+import com.example.paf_backend_2025.models.Comment;
+import com.example.paf_backend_2025.models.LearningProgressUpdate;
+import com.example.paf_backend_2025.models.Post;
+import com.mongodb.DBRef;
+import com.mongodb.ReadPreference;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.FSDirectory;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over post captions, comments and public learning progress
+ * updates, backed by a Lucene index on local disk.
+ * <p>
+ * The write services push every create/update/delete into the index, so
+ * queries never touch MongoDB. New documents become searchable on the next
+ * searcher refresh and durable on the next commit.
+ * <p>
+ * A full reindex builds a new index generation in its own directory while
+ * the current one keeps serving, then swaps it in. The bulk read goes to a
+ * secondary no more than app.search.reindex.max-staleness-seconds behind.
+ * Writes that arrive during the rebuild go to both generations. The
+ * documents they touched, and any touched within the staleness bound before
+ * it, are re-read from the primary before the swap, so neither a concurrent
+ * edit or delete nor one the secondary had yet to replicate is lost.
+ * <p>
+ * The index is per node and only sees the writes made through this node.
+ * With several instances each one needs its own index directory, and
+ * changes made through the others appear here only after a reindex.
+ */
+@Service
+public class ContentSearchService {
+
+    public static final String TYPE_POST = "post";
+    public static final String TYPE_COMMENT = "comment";
+    public static final String TYPE_PROGRESS = "progress";
+
+    private static final Logger log = LoggerFactory.getLogger(ContentSearchService.class);
+
+    private static final String KEY = "key";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String USER_ID = "userId";
+    private static final String POST_ID = "postId";
+    private static final String TEXT = "text";
+    private static final String CREATED_AT = "createdAt";
+    private static final int SNIPPET_LENGTH = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final Analyzer analyzer = new EnglishAnalyzer();
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+
+    // Live writes hold the read lock; the reindex holds the write lock to swap generations
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Index current;
+    private volatile Index building;
+    private final Set<String> touchedWhileBuilding = ConcurrentHashMap.newKeySet();
+    // Key to time of the last live write, kept for the staleness bound so a reindex can resync them
+    private final Map<String, Long> recentlyTouched = new ConcurrentHashMap<>();
+
+    @Value("${app.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.index-dir:data/search-index}")
+    private String indexDir;
+
+    @Value("${app.search.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.search.max-page-size:100}")
+    private int maxPageSize;
+
+    // Deepest result an offset cursor may reach
+    @Value("${app.search.max-window:1000}")
+    private int maxWindow;
+
+    // 0 streams the reindex from the primary
+    @Value("${app.search.reindex.max-staleness-seconds:90}")
+    private long maxStalenessSeconds;
+
+    public ContentSearchService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Opens the newest committed generation under index-dir and deletes the
+     * rest, which are left over from rebuilds that did not finish.
+     */
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path root = Paths.get(indexDir);
+        Files.createDirectories(root);
+        Path latest = null;
+        List<Path> generations = generations(root);
+        for (Path generation : generations) {
+            try (Directory directory = FSDirectory.open(generation)) {
+                if (DirectoryReader.indexExists(directory)) {
+                    latest = generation;
+                }
+            }
+        }
+        for (Path generation : generations) {
+            if (!generation.equals(latest)) {
+                deleteGeneration(generation);
+            }
+        }
+        current = new Index(latest != null ? latest : newGeneration(), IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    // A fresh or wiped index directory is rebuilt once at startup
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIfEmpty() {
+        if (current != null && current.writer.getDocStats().numDocs == 0) {
+            reindex();
+        }
+    }
+
+    @Async("maintenanceExecutor")
+    public void reindexAsync() {
+        reindex();
+    }
+
+    public boolean isReindexing() {
+        return reindexing.get();
+    }
+
+    /**
+     * Rebuilds the index from the posts, comments and learning_progress_updates
+     * collections into a new generation and swaps it in; searches keep using
+     * the current generation until then.
+     */
+    public void reindex() {
+        if (current == null || !reindexing.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Index fresh = null;
+        try {
+            fresh = new Index(newGeneration(), IndexWriterConfig.OpenMode.CREATE);
+            touchedWhileBuilding.clear();
+            building = fresh;
+            // Recent writes the secondary may not have yet are resynced like those made during the stream
+            long since = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(maxStalenessSeconds);
+            recentlyTouched.forEach((key, at) -> {
+                if (at >= since) {
+                    touchedWhileBuilding.add(key);
+                }
+            });
+
+            long[] counts = new long[3];
+            List<Source> sources = sources();
+            for (int i = 0; i < sources.size(); i++) {
+                counts[i] = streamInto(fresh.writer, sources.get(i));
+            }
+
+            Index previous;
+            swapLock.writeLock().lock();
+            try {
+                // Re-read what changed during the stream, which may have caught those documents in an older state
+                for (String key : touchedWhileBuilding) {
+                    resync(fresh.writer, key);
+                }
+                fresh.writer.commit();
+                fresh.searcherManager.maybeRefresh();
+                previous = current;
+                current = fresh;
+                building = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            previous.close();
+            deleteGeneration(previous.path);
+            log.info("Rebuilt search index: {} posts, {} comments, {} progress updates in {} ms",
+                    counts[0], counts[1], counts[2], System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            log.error("Search reindex failed", e);
+            building = null;
+            if (fresh != null) {
+                try {
+                    fresh.close();
+                    deleteGeneration(fresh.path);
+                } catch (IOException | RuntimeException closeFailure) {
+                    log.warn("Discarding the partial search index failed", closeFailure);
+                }
+            }
+        } finally {
+            touchedWhileBuilding.clear();
+            reindexing.set(false);
+        }
+    }
+
+    public void indexPost(Post post) {
+        if (post.isDeleteStatus()) {
+            remove(TYPE_POST, post.getId());
+            return;
+        }
+        String userId = post.getAuthor() != null ? post.getAuthor().getId()
+                : post.getUser() != null ? post.getUser().getId() : null;
+        write(TYPE_POST, post.getId(), userId, null, post.getCaption(), post.getCreatedAt());
+    }
+
+    public void indexComment(Comment comment) {
+        if (comment.isDeleteStatus()) {
+            remove(TYPE_COMMENT, comment.getId());
+            return;
+        }
+        write(TYPE_COMMENT, comment.getId(),
+                comment.getUser() != null ? comment.getUser().getId() : null,
+                comment.getPost() != null ? comment.getPost().getId() : null,
+                comment.getContent(), comment.getCreatedAt());
+    }
+
+    // Private updates are kept out of the index, so flipping visibility adds or removes them
+    public void indexProgress(LearningProgressUpdate progress) {
+        if (progress.isDeleteStatus() || !progress.isPublic()) {
+            remove(TYPE_PROGRESS, progress.getId());
+            return;
+        }
+        write(TYPE_PROGRESS, progress.getId(),
+                progress.getUser() != null ? progress.getUser().getId() : null, null,
+                progressText(progress.getContent(), progress.getTemplateType()), progress.getCreatedAt());
+    }
+
+    public void remove(String type, String id) {
+        if (current == null || id == null) {
+            return;
+        }
+        try {
+            apply(key(type, id), writer -> writer.deleteDocuments(new Term(KEY, key(type, id))));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Removing {} {} from the search index failed", type, id, e);
+        }
+    }
+
+    /**
+     * Ranked search; type optionally narrows to post, comment or progress.
+     * The cursor is the offset of the next result.
+     */
+    public CursorPageDTO<SearchHitDTO> search(String q, String type, String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        int offset = parseOffset(cursor);
+        if (current == null || q == null || q.isBlank() || offset >= maxWindow) {
+            return new CursorPageDTO<>(List.of(), null);
+        }
+
+        org.apache.lucene.search.Query parsed = new SimpleQueryParser(analyzer, TEXT).parse(q);
+        if (parsed == null) {
+            // Nothing but stop words
+            return new CursorPageDTO<>(List.of(), null);
+        }
+        org.apache.lucene.search.Query query = parsed;
+        if (type != null && !type.isBlank()) {
+            query = new BooleanQuery.Builder()
+                    .add(parsed, BooleanClause.Occur.MUST)
+                    .add(new TermQuery(new Term(TYPE, type)), BooleanClause.Occur.FILTER)
+                    .build();
+        }
+
+        int window = Math.min(offset + pageSize, maxWindow);
+        try {
+            SearcherManager searcherManager = current.searcherManager;
+            IndexSearcher searcher;
+            try {
+                searcher = searcherManager.acquire();
+            } catch (AlreadyClosedException e) {
+                // A reindex swapped generations in between
+                searcherManager = current.searcherManager;
+                searcher = searcherManager.acquire();
+            }
+            try {
+                TopDocs top = searcher.search(query, window + 1);
+                StoredFields storedFields = searcher.storedFields();
+                List<SearchHitDTO> hits = new ArrayList<>();
+                for (int i = offset; i < Math.min(window, top.scoreDocs.length); i++) {
+                    hits.add(toHit(storedFields.document(top.scoreDocs[i].doc), top.scoreDocs[i].score));
+                }
+                String nextCursor = top.scoreDocs.length > window && window < maxWindow
+                        ? String.valueOf(window) : null;
+                return new CursorPageDTO<>(hits, nextCursor);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Search failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.refresh-ms:1000}")
+    public void refresh() throws IOException {
+        Index index = current;
+        if (index != null) {
+            try {
+                index.searcherManager.maybeRefresh();
+            } catch (AlreadyClosedException e) {
+                // Swapped out by a reindex; the new generation was refreshed when it was installed
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.commit-ms:30000}")
+    public void commit() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(maxStalenessSeconds);
+        recentlyTouched.values().removeIf(at -> at < cutoff);
+        Index index = current;
+        if (index == null || !index.writer.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            index.writer.commit();
+        } catch (AlreadyClosedException e) {
+            // Swapped out by a reindex, which committed the new generation
+        } catch (IOException | RuntimeException e) {
+            log.warn("Search index commit failed", e);
+        }
+    }
+
+    // Search is secondary to the write that triggered it, so failures are logged, not thrown
+    private void write(String type, String id, String userId, String postId, String text, Date createdAt) {
+        if (current == null || id == null) {
+            return;
+        }
+        try {
+            org.apache.lucene.document.Document doc = toDocument(type, id, userId, postId, text, createdAt);
+            apply(key(type, id), writer -> writer.updateDocument(new Term(KEY, key(type, id)), doc));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Indexing {} {} failed", type, id, e);
+        }
+    }
+
+    // Applies a live change to the serving generation and, during a reindex, to the one being built
+    private void apply(String key, IndexChange change) throws IOException {
+        swapLock.readLock().lock();
+        try {
+            change.applyTo(current.writer);
+            if (maxStalenessSeconds > 0) {
+                recentlyTouched.put(key, System.currentTimeMillis());
+            }
+            Index next = building;
+            if (next != null) {
+                touchedWhileBuilding.add(key);
+                change.applyTo(next.writer);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // Whatever a lagging secondary gets wrong was touched recently, and is resynced from the primary
+    private long streamInto(IndexWriter writer, Source source) throws IOException {
+        ReadPreference readPreference = maxStalenessSeconds > 0
+                ? ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS)
+                : ReadPreference.primary();
+        Query query = new Query(source.criteria()).withReadPreference(readPreference);
+        query.fields().include(source.fields()).include("user").include("createdAt");
+        long count = 0;
+        try (var docs = mongoTemplate.stream(query, Document.class, source.collection())) {
+            for (Document doc : (Iterable<Document>) docs::iterator) {
+                writeDocument(writer, source, doc);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void resync(IndexWriter writer, String key) throws IOException {
+        int separator = key.indexOf(':');
+        String type = key.substring(0, separator);
+        String id = key.substring(separator + 1);
+        Source source = sources().stream().filter(candidate -> candidate.type().equals(type)).findFirst().orElse(null);
+        if (source == null || !ObjectId.isValid(id)) {
+            return;
+        }
+        Query query = new Query(source.criteria())
+                .addCriteria(Criteria.where("_id").is(new ObjectId(id)))
+                .withReadPreference(ReadPreference.primary());
+        query.fields().include(source.fields()).include("user").include("createdAt");
+        Document doc = mongoTemplate.findOne(query, Document.class, source.collection());
+        if (doc == null) {
+            writer.deleteDocuments(new Term(KEY, key));
+        } else {
+            writeDocument(writer, source, doc);
+        }
+    }
+
+    private static void writeDocument(IndexWriter writer, Source source, Document doc) throws IOException {
+        String id = doc.getObjectId("_id").toHexString();
+        writer.updateDocument(new Term(KEY, key(source.type(), id)),
+                toDocument(source.type(), id, refId(doc, "user"), refId(doc, "post"),
+                        source.text().apply(doc), doc.getDate("createdAt")));
+    }
+
+    // Built per use since Criteria is mutable
+    private static List<Source> sources() {
+        return List.of(
+                new Source(TYPE_POST, "posts", Criteria.where("deleteStatus").ne(true),
+                        doc -> doc.getString("caption"), "caption"),
+                new Source(TYPE_COMMENT, "comments", Criteria.where("deleteStatus").ne(true),
+                        doc -> doc.getString("content"), "content", "post"),
+                new Source(TYPE_PROGRESS, "learning_progress_updates",
+                        Criteria.where("deleteStatus").ne(true).and("isPublic").is(true),
+                        doc -> progressText(doc.getString("content"), doc.getString("templateType")),
+                        "content", "templateType"));
+    }
+
+    private Path newGeneration() {
+        return Paths.get(indexDir).resolve(String.valueOf(System.currentTimeMillis()));
+    }
+
+    // Generations are the numbered subdirectories of index-dir, oldest first
+    private static List<Path> generations(Path root) throws IOException {
+        try (Stream<Path> children = Files.list(root)) {
+            return children
+                    .filter(path -> Files.isDirectory(path) && path.getFileName().toString().matches("\\d+"))
+                    .sorted(Comparator.comparingLong(path -> Long.parseLong(path.getFileName().toString())))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void deleteGeneration(Path generation) throws IOException {
+        try (Stream<Path> paths = Files.walk(generation)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static org.apache.lucene.document.Document toDocument(String type, String id, String userId, String postId,
+                                                                  String text, Date createdAt) {
+        org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
+        doc.add(new StringField(KEY, key(type, id), Field.Store.NO));
+        doc.add(new StringField(TYPE, type, Field.Store.YES));
+        doc.add(new StoredField(ID, id));
+        if (userId != null) {
+            doc.add(new StringField(USER_ID, userId, Field.Store.YES));
+        }
+        if (postId != null) {
+            doc.add(new StoredField(POST_ID, postId));
+        }
+        doc.add(new TextField(TEXT, text == null ? "" : text, Field.Store.YES));
+        if (createdAt != null) {
+            doc.add(new StoredField(CREATED_AT, createdAt.getTime()));
+        }
+        return doc;
+    }
+
+    private static SearchHitDTO toHit(org.apache.lucene.document.Document doc, float score) {
+        SearchHitDTO hit = new SearchHitDTO();
+        hit.setType(doc.get(TYPE));
+        hit.setId(doc.get(ID));
+        hit.setUserId(doc.get(USER_ID));
+        hit.setPostId(doc.get(POST_ID));
+        String text = doc.get(TEXT);
+        hit.setSnippet(text != null && text.length() > SNIPPET_LENGTH ? text.substring(0, SNIPPET_LENGTH) + "…" : text);
+        hit.setScore(score);
+        if (doc.getField(CREATED_AT) != null) {
+            hit.setCreatedAt(new Date(doc.getField(CREATED_AT).numericValue().longValue()));
+        }
+        return hit;
+    }
+
+    private static String refId(Document doc, String field) {
+        Object ref = doc.get(field);
+        return ref instanceof DBRef dbRef && dbRef.getId() != null ? dbRef.getId().toString() : null;
+    }
+
+    // Template types such as "completed_tutorial" are searchable as words
+    private static String progressText(String content, String templateType) {
+        if (templateType == null) {
+            return content;
+        }
+        return (content == null ? "" : content) + "\n" + templateType.replace('_', ' ');
+    }
+
+    private record Source(String type, String collection, Criteria criteria,
+                          Function<Document, String> text, String... fields) {
+    }
+
+    @FunctionalInterface
+    private interface IndexChange {
+        void applyTo(IndexWriter writer) throws IOException;
+    }
+
+    /**
+     * One index generation: its directory, writer and searchers.
+     */
+    private final class Index implements Closeable {
+        private final Path path;
+        private final Directory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+
+        Index(Path path, IndexWriterConfig.OpenMode mode) throws IOException {
+            this.path = path;
+            this.directory = FSDirectory.open(path);
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(mode));
+            this.searcherManager = new SearcherManager(writer, null);
+        }
+
+        @Override
+        public void close() throws IOException {
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
+
+    private static String key(String type, String id) {
+        return type + ":" + id;
+    }
+
+    private static int parseOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.FollowGraphStatsDTO;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of the follows collection for neighbour lists and follower counts.
+ * <p>
+ * User ids are interned to dense int ordinals and each user's followers and
+ * followings are kept as sorted int arrays, so an edge costs about 8 bytes
+ * (once in each direction) rather than a Follow document. The graph loads at
+ * startup and is then kept current by this node's FollowService writes; until
+ * it is ready, callers fall back to the database.
+ * <p>
+ * Follows made through other nodes only show up at the next periodic reload,
+ * so the graph is a hint: it drives timeline fan-out and recommendations,
+ * while the follower counts users see and isFollowing are always answered
+ * by the database.
+ */
+@Component
+public class FollowGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowGraph.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${app.follow-graph.enabled:true}")
+    private boolean enabled;
+
+    // Guarded by lock
+    private Map<String, Integer> ordinals = new HashMap<>();
+    private List<String> ids = new ArrayList<>();
+    private IntSet[] following = new IntSet[0];
+    private IntSet[] followers = new IntSet[0];
+    private long edgeCount;
+    private boolean ready;
+    private boolean loading;
+    private List<String[]> pendingChanges = new ArrayList<>();
+    private long loadedAt;
+    private long loadMillis;
+
+    public FollowGraph(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Follow graph load failed", e);
+        }
+    }
+
+    // Picks up follows written through other nodes; the current graph keeps serving while the new one loads
+    @Async("maintenanceExecutor")
+    @Scheduled(fixedDelayString = "${app.follow-graph.refresh-ms:600000}",
+            initialDelayString = "${app.follow-graph.refresh-ms:600000}")
+    public void refresh() {
+        if (!enabled || !isReady()) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Follow graph refresh failed", e);
+        }
+    }
+
+    /**
+     * Rebuilds the graph from the follows collection. Changes recorded while
+     * the load runs are replayed on top of it before it is swapped in; if the
+     * load fails they are dropped, since the next load reads them anyway.
+     */
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Builder builder = new Builder();
+        Query query = Query.query(Criteria.where("followerId").exists(true));
+        query.fields().include("followerId").include("followingId").exclude("_id");
+        try (var edges = mongoTemplate.stream(query, Document.class, "follows")) {
+            edges.forEach(edge -> builder.add(edge.getString("followerId"), edge.getString("followingId")));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                loading = false;
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        int users;
+        long edges;
+        lock.writeLock().lock();
+        try {
+            builder.install(this);
+            for (String[] change : pendingChanges) {
+                if (change[2] != null) {
+                    applyAdd(change[0], change[1]);
+                } else {
+                    applyRemove(change[0], change[1]);
+                }
+            }
+            pendingChanges = new ArrayList<>();
+            loading = false;
+            ready = true;
+            loadedAt = System.currentTimeMillis();
+            loadMillis = loadedAt - start;
+            users = ids.size();
+            edges = edgeCount;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded follow graph: {} users, {} edges in {} ms", users, edges, System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addEdge(String followerId, String followingId) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                applyAdd(followerId, followingId);
+            }
+            if (loading) {
+                pendingChanges.add(new String[]{followerId, followingId, "add"});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeEdge(String followerId, String followingId) {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                applyRemove(followerId, followingId);
+            }
+            if (loading) {
+                pendingChanges.add(new String[]{followerId, followingId, null});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int followerCount(String userId) {
+        return degree(followers, userId);
+    }
+
+    public List<String> followerIds(String userId) {
+        return neighbours(followers, userId);
+    }
+
+    public List<String> followingIds(String userId) {
+        return neighbours(following, userId);
+    }
+
+    public FollowGraphStatsDTO getStats() {
+        lock.readLock().lock();
+        try {
+            long arrayBytes = 0;
+            for (int i = 0; i < ids.size(); i++) {
+                arrayBytes += IntSet.bytes(following[i]) + IntSet.bytes(followers[i]);
+            }
+            FollowGraphStatsDTO stats = new FollowGraphStatsDTO();
+            stats.setReady(ready);
+            stats.setUsers(ids.size());
+            stats.setEdges(edgeCount);
+            stats.setAdjacencyBytes(arrayBytes);
+            stats.setLoadedAt(loadedAt);
+            stats.setLoadMillis(loadMillis);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int degree(IntSet[] adjacency, String userId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(userId);
+            return ordinal == null || adjacency[ordinal] == null ? 0 : adjacency[ordinal].size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String> neighbours(IntSet[] adjacency, String userId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(userId);
+            if (ordinal == null || adjacency[ordinal] == null) {
+                return List.of();
+            }
+            IntSet set = adjacency[ordinal];
+            List<String> result = new ArrayList<>(set.size);
+            for (int i = 0; i < set.size; i++) {
+                result.add(ids.get(set.values[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyAdd(String followerId, String followingId) {
+        int from = intern(followerId);
+        int to = intern(followingId);
+        if (following[from] == null) {
+            following[from] = new IntSet(4);
+        }
+        if (following[from].add(to)) {
+            if (followers[to] == null) {
+                followers[to] = new IntSet(4);
+            }
+            followers[to].add(from);
+            edgeCount++;
+        }
+    }
+
+    private void applyRemove(String followerId, String followingId) {
+        Integer from = ordinals.get(followerId);
+        Integer to = ordinals.get(followingId);
+        if (from == null || to == null || following[from] == null) {
+            return;
+        }
+        if (following[from].remove(to)) {
+            followers[to].remove(from);
+            edgeCount--;
+        }
+    }
+
+    private int intern(String userId) {
+        Integer ordinal = ordinals.get(userId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = ids.size();
+        ordinals.put(userId, next);
+        ids.add(userId);
+        if (next == following.length) {
+            int capacity = Math.max(16, next + (next >> 1));
+            following = Arrays.copyOf(following, capacity);
+            followers = Arrays.copyOf(followers, capacity);
+        }
+        return next;
+    }
+
+    /**
+     * Collects edges into flat int arrays, then sizes every adjacency array
+     * exactly and sorts it once, instead of growing sets edge by edge.
+     */
+    private static class Builder {
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> ids = new ArrayList<>();
+        private int[] from = new int[1024];
+        private int[] to = new int[1024];
+        private int edges;
+
+        void add(String followerId, String followingId) {
+            if (followerId == null || followingId == null) {
+                return;
+            }
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+            }
+            from[edges] = intern(followerId);
+            to[edges] = intern(followingId);
+            edges++;
+        }
+
+        void install(FollowGraph graph) {
+            int users = ids.size();
+            int[] outDegree = new int[users];
+            int[] inDegree = new int[users];
+            for (int i = 0; i < edges; i++) {
+                outDegree[from[i]]++;
+                inDegree[to[i]]++;
+            }
+            IntSet[] following = new IntSet[Math.max(16, users)];
+            IntSet[] followers = new IntSet[Math.max(16, users)];
+            for (int u = 0; u < users; u++) {
+                following[u] = outDegree[u] == 0 ? null : new IntSet(outDegree[u]);
+                followers[u] = inDegree[u] == 0 ? null : new IntSet(inDegree[u]);
+            }
+            for (int i = 0; i < edges; i++) {
+                following[from[i]].append(to[i]);
+                followers[to[i]].append(from[i]);
+            }
+            long distinct = 0;
+            for (int u = 0; u < users; u++) {
+                if (following[u] != null) {
+                    following[u].sortAndDedupe();
+                    distinct += following[u].size;
+                }
+                if (followers[u] != null) {
+                    followers[u].sortAndDedupe();
+                }
+            }
+
+            graph.ordinals = ordinals;
+            graph.ids = ids;
+            graph.following = following;
+            graph.followers = followers;
+            graph.edgeCount = distinct;
+        }
+
+        private int intern(String userId) {
+            Integer ordinal = ordinals.get(userId);
+            if (ordinal == null) {
+                ordinal = ids.size();
+                ordinals.put(userId, ordinal);
+                ids.add(userId);
+            }
+            return ordinal;
+        }
+    }
+
+    /**
+     * Sorted set of ordinals backed by a plain int array.
+     */
+    private static class IntSet {
+        private int[] values;
+        private int size;
+
+        IntSet(int capacity) {
+            this.values = new int[capacity];
+        }
+
+        static long bytes(IntSet set) {
+            return set == null ? 0 : 16L + 4L * set.values.length;
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        boolean add(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return false;
+            }
+            int insertAt = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+            return true;
+        }
+
+        boolean remove(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        void append(int value) {
+            values[size++] = value;
+        }
+
+        void sortAndDedupe() {
+            Arrays.sort(values, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || values[i] != values[unique - 1]) {
+                    values[unique++] = values[i];
+                }
+            }
+            size = unique;
+        }
+    }
+}
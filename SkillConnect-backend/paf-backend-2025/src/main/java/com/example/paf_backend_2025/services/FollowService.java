@@ -1,82 +1,236 @@
 package com.example.paf_backend_2025.services;
 
+import com.example.paf_backend_2025.dtos.FollowGraphStatsDTO;
 import com.example.paf_backend_2025.models.AppUser;
 import com.example.paf_backend_2025.models.Follow;
-import com.example.paf_backend_2025.repositories.AppUserRepository;
 import com.example.paf_backend_2025.repositories.FollowRepository;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class FollowService {
 
+    private static final String FOLLOWER_COUNT = "followerCount";
+    private static final String FOLLOWING_COUNT = "followingCount";
+
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(FollowService.class);
+
     @Autowired
     private FollowRepository followRepository;
 
     @Autowired
-    private AppUserRepository appUserRepository;
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FollowGraph followGraph;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Value("${app.counters.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    /**
+     * Upserts the pair, so a repeat matches the existing edge even before
+     * FollowPairMigration has built the unique follower_following_idx index
+     * (or when migrations are disabled); once it exists the index also settles
+     * two upserts racing on the same pair. The counter updates double as the
+     * user-exists check.
+     */
     public String followUser(String followerId, String followingId) {
         if (followerId.equals(followingId)) {
             return "You cannot follow yourself.";
         }
-
-        Optional<AppUser> followerOpt = appUserRepository.findById(followerId);
-        Optional<AppUser> followingOpt = appUserRepository.findById(followingId);
-
-        if (followerOpt.isEmpty() || followingOpt.isEmpty()) {
+        if (!ObjectId.isValid(followerId) || !ObjectId.isValid(followingId)) {
             return "User not found.";
         }
 
-        Optional<Follow> existing = followRepository.findByFollowerAndFollowing(followerOpt.get(), followingOpt.get());
-        if (existing.isPresent()) {
+        Query pair = Query.query(Criteria.where("followerId").is(followerId).and("followingId").is(followingId));
+        BsonValue upsertedId;
+        try {
+            upsertedId = mongoTemplate.upsert(pair, new Update().setOnInsert("followedAt", new Date()),
+                    Follow.class).getUpsertedId();
+        } catch (DuplicateKeyException e) {
+            upsertedId = null;
+        }
+        if (upsertedId == null) {
             return "Already following.";
         }
+        Query inserted = Query.query(Criteria.where("_id").is(upsertedId.asObjectId().getValue()));
 
-        Follow follow = new Follow(followerOpt.get(), followingOpt.get());
-        followRepository.save(follow);
+        if (!adjust(followingId, FOLLOWER_COUNT, 1)) {
+            mongoTemplate.remove(inserted, Follow.class);
+            return "User not found.";
+        }
+        if (!adjust(followerId, FOLLOWING_COUNT, 1)) {
+            mongoTemplate.remove(inserted, Follow.class);
+            adjust(followingId, FOLLOWER_COUNT, -1);
+            return "User not found.";
+        }
+        followGraph.addEdge(followerId, followingId);
+        recommendationService.onFollowChanged(followerId);
         return "Followed successfully.";
     }
 
     public String unfollowUser(String followerId, String followingId) {
-        Optional<AppUser> followerOpt = appUserRepository.findById(followerId);
-        Optional<AppUser> followingOpt = appUserRepository.findById(followingId);
-
-        if (followerOpt.isEmpty() || followingOpt.isEmpty()) {
-            return "User not found.";
-        }
-
-        Optional<Follow> follow = followRepository.findByFollowerAndFollowing(followerOpt.get(), followingOpt.get());
-        if (follow.isPresent()) {
-            followRepository.delete(follow.get());
-            return "Unfollowed successfully.";
-        } else {
+        if (followRepository.deleteByFollowerIdAndFollowingId(followerId, followingId) == 0) {
             return "Not following.";
         }
+        followGraph.removeEdge(followerId, followingId);
+        recommendationService.onFollowChanged(followerId);
+        adjust(followingId, FOLLOWER_COUNT, -1);
+        adjust(followerId, FOLLOWING_COUNT, -1);
+        return "Unfollowed successfully.";
     }
 
+    // Counts and membership come from the database: the graph only sees this node's writes between reloads
     public long getFollowingCount(String userId) {
-        return appUserRepository.findById(userId)
-                .map(user -> followRepository.countByFollower(user))
-                .orElse(0L);
+        return readCount(userId, FOLLOWING_COUNT);
     }
 
     public long getFollowerCount(String userId) {
-        return appUserRepository.findById(userId)
-                .map(user -> followRepository.countByFollowing(user))
-                .orElse(0L);
+        return readCount(userId, FOLLOWER_COUNT);
     }
+
     public boolean isFollowing(String followerId, String followingId) {
-        Optional<AppUser> followerOpt = appUserRepository.findById(followerId);
-        Optional<AppUser> followingOpt = appUserRepository.findById(followingId);
+        return followRepository.existsByFollowerIdAndFollowingId(followerId, followingId);
+    }
+
+    public FollowGraphStatsDTO getGraphStats() {
+        return followGraph.getStats();
+    }
+
+    @Async("maintenanceExecutor")
+    @Scheduled(cron = "${app.counters.reconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        try {
+            long repaired = reconcileCounts();
+            if (repaired > 0) {
+                log.info("Repaired follow counters on {} users", repaired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Follow counter reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Recounts followers and followings from the follows collection, walking
+     * users in _id batches, and fixes users whose stored counters differ.
+     * Each counter is only overwritten while it still holds the value read
+     * with the batch, so a follow or unfollow $inc that lands during the
+     * recount is never lost; that user is left for the next run. Returns how
+     * many users were repaired.
+     */
+    public long reconcileCounts() {
+        long repaired = 0;
+        ObjectId lastId = null;
+        while (true) {
+            Query query = new Query(lastId == null ? new Criteria() : Criteria.where("_id").gt(lastId))
+                    .with(Sort.by("_id"))
+                    .limit(RECONCILE_BATCH_SIZE);
+            query.fields().include(FOLLOWER_COUNT).include(FOLLOWING_COUNT);
+            List<Document> users = mongoTemplate.find(query, Document.class, "app_users");
+            if (users.isEmpty()) {
+                return repaired;
+            }
+
+            List<String> ids = users.stream()
+                    .map(user -> user.getObjectId("_id").toHexString())
+                    .collect(Collectors.toList());
+            Map<String, Long> followers = countBy("followingId", ids);
+            Map<String, Long> followings = countBy("followerId", ids);
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "app_users");
+            int changed = 0;
+            for (Document user : users) {
+                String id = user.getObjectId("_id").toHexString();
+                boolean drifted = false;
+                long followerCount = followers.getOrDefault(id, 0L);
+                if (!Long.valueOf(followerCount).equals(asLong(user.get(FOLLOWER_COUNT)))) {
+                    bulk.updateOne(unchanged(user, FOLLOWER_COUNT), new Update().set(FOLLOWER_COUNT, followerCount));
+                    drifted = true;
+                }
+                long followingCount = followings.getOrDefault(id, 0L);
+                if (!Long.valueOf(followingCount).equals(asLong(user.get(FOLLOWING_COUNT)))) {
+                    bulk.updateOne(unchanged(user, FOLLOWING_COUNT), new Update().set(FOLLOWING_COUNT, followingCount));
+                    drifted = true;
+                }
+                if (drifted) {
+                    changed++;
+                }
+            }
+            if (changed > 0) {
+                bulk.execute();
+                repaired += changed;
+            }
+            lastId = users.get(users.size() - 1).getObjectId("_id");
+        }
+    }
+
+    private static Query unchanged(Document user, String counter) {
+        return Query.query(Criteria.where("_id").is(user.getObjectId("_id")).and(counter).is(user.get(counter)));
+    }
 
-        if (followerOpt.isEmpty() || followingOpt.isEmpty()) {
-            return false;
+    // Never takes a counter below zero; reconciliation corrects any undercount
+    private boolean adjust(String userId, String counter, int delta) {
+        Criteria criteria = Criteria.where("id").is(userId);
+        if (delta < 0) {
+            criteria = criteria.and(counter).gt(0);
         }
+        return mongoTemplate.updateFirst(Query.query(criteria), new Update().inc(counter, delta), AppUser.class)
+                .getMatchedCount() > 0;
+    }
 
-        return followRepository.findByFollowerAndFollowing(followerOpt.get(), followingOpt.get()).isPresent();
+    private long readCount(String userId, String counter) {
+        if (!ObjectId.isValid(userId)) {
+            return 0L;
+        }
+        Query query = Query.query(Criteria.where("_id").is(new ObjectId(userId)));
+        query.fields().include(counter);
+        Document user = mongoTemplate.findOne(query, Document.class, "app_users");
+        Long count = user == null ? null : asLong(user.get(counter));
+        return count == null ? 0L : count;
     }
 
+    private Map<String, Long> countBy(String field, List<String> userIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(field).in(userIds)),
+                Aggregation.group(field).count().as("count"));
+        Map<String, Long> counts = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, "follows", Document.class).getMappedResults()) {
+            counts.put(row.getString("_id"), ((Number) row.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    private static Long asLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
 }
@@ -8,6 +8,11 @@ import com.example.paf_backend_2025.models.LearningProgressUpdate;
 import com.example.paf_backend_2025.models.AppUser;
 import com.example.paf_backend_2025.repositories.LearningProgressUpdateRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
@@ -20,12 +25,27 @@ public class LearningProgressUpdateService {
 
     private final LearningProgressUpdateRepository progressRepository;
     private final AppUserService appUserService;
+    private final RecommendationService recommendationService;
+    private final ContentSearchService contentSearchService;
+    private final ProgressAnalyticsService progressAnalyticsService;
+    private final ProgressRollupService progressRollupService;
+    private final MongoTemplate mongoTemplate;
 
     @Autowired
     public LearningProgressUpdateService(LearningProgressUpdateRepository progressRepository,
-                                         AppUserService appUserService) {
+                                         AppUserService appUserService,
+                                         RecommendationService recommendationService,
+                                         ContentSearchService contentSearchService,
+                                         ProgressAnalyticsService progressAnalyticsService,
+                                         ProgressRollupService progressRollupService,
+                                         MongoTemplate mongoTemplate) {
         this.progressRepository = progressRepository;
         this.appUserService = appUserService;
+        this.recommendationService = recommendationService;
+        this.contentSearchService = contentSearchService;
+        this.progressAnalyticsService = progressAnalyticsService;
+        this.progressRollupService = progressRollupService;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public List<LearningProgressUpdateDTO> getAllProgressUpdates() {
@@ -74,27 +94,59 @@ public class LearningProgressUpdateService {
         progress.setIsPublic(createDTO.isPublic());
         progress.setEstimatedTime(createDTO.getEstimatedTime());
         LearningProgressUpdate savedProgress = progressRepository.save(progress);
+        recommendationService.onSkillRecorded(appUser.getId(), savedProgress.getTemplateType());
+        contentSearchService.indexProgress(savedProgress);
+        progressAnalyticsService.onCreated(savedProgress);
+        progressRollupService.onCreated(savedProgress);
         return convertToDTO(savedProgress);
     }
 
+    // Both writes hand back the pre-image, so concurrent edits and deletes each apply their own delta exactly once
     public LearningProgressUpdateDTO updateProgressUpdate(String id, UpdateLearningProgressUpdateDTO updateDTO) {
-        LearningProgressUpdate progress = progressRepository.findByIdAndDeleteStatusFalse(id);
+        Date now = new Date();
+        Update update = new Update()
+                .set("content", updateDTO.getContent())
+                .set("templateType", updateDTO.getTemplateType())
+                .set("completedProgress", updateDTO.getCompletedProgress())
+                .set("updatedAt", now)
+                .set("isPublic", updateDTO.isPublic())
+                .set("estimatedTime", updateDTO.getEstimatedTime());
+        LearningProgressUpdate progress = mongoTemplate.findAndModify(live(id), update,
+                FindAndModifyOptions.options().returnNew(false), LearningProgressUpdate.class);
+        if (progress == null) {
+            return null;
+        }
+        String oldTemplateType = progress.getTemplateType();
+        double oldEstimatedTime = progress.getEstimatedTime();
+        double oldCompletedProgress = progress.getCompletedProgress();
 
         progress.setContent(updateDTO.getContent());
         progress.setTemplateType(updateDTO.getTemplateType());
         progress.setCompletedProgress(updateDTO.getCompletedProgress());
-        progress.setUpdatedAt(new Date());
+        progress.setUpdatedAt(now);
         progress.setIsPublic(updateDTO.isPublic());
         progress.setEstimatedTime(updateDTO.getEstimatedTime());
-        LearningProgressUpdate updatedProgress = progressRepository.save(progress);
-        return convertToDTO(updatedProgress);
+        contentSearchService.indexProgress(progress);
+        progressAnalyticsService.onUpdated(progress, oldTemplateType, oldEstimatedTime, oldCompletedProgress);
+        progressRollupService.onUpdated(progress, oldTemplateType, oldEstimatedTime, oldCompletedProgress);
+        return convertToDTO(progress);
     }
 
-    public void deleteProgressUpdate(String id) {
-        LearningProgressUpdate progress = progressRepository.findByIdAndDeleteStatusFalse(id);
+    public boolean deleteProgressUpdate(String id) {
+        LearningProgressUpdate progress = mongoTemplate.findAndModify(live(id),
+                new Update().set("deleteStatus", true).set("updatedAt", new Date()),
+                FindAndModifyOptions.options().returnNew(false), LearningProgressUpdate.class);
+        if (progress == null) {
+            return false;
+        }
+        contentSearchService.remove(ContentSearchService.TYPE_PROGRESS, id);
+        progressAnalyticsService.onDeleted(progress);
+        progressRollupService.onDeleted(progress);
+        return true;
+    }
 
-        progress.setDeleteStatus(true);
-        progressRepository.save(progress);
+    private static Query live(String id) {
+        return Query.query(Criteria.where("id").is(id).and("deleteStatus").ne(true));
     }
 
     private LearningProgressUpdateDTO convertToDTO(LearningProgressUpdate progress) {
@@ -115,7 +167,9 @@ public class LearningProgressUpdateService {
         return progressRepository.findById(id).map(update -> {
             update.setIsPublic(isPublic);
             update.setUpdatedAt(new Date());
-            return progressRepository.save(update);
+            LearningProgressUpdate saved = progressRepository.save(update);
+            contentSearchService.indexProgress(saved);
+            return saved;
         });
     }
 }
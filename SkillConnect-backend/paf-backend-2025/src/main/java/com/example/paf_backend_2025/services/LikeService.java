@@ -2,34 +2,54 @@ package com.example.paf_backend_2025.services;
 
 import com.example.paf_backend_2025.dtos.LikeDTO;
 import com.example.paf_backend_2025.dtos.LikeResponseDTO;
+import com.example.paf_backend_2025.dtos.LikeToggleDTO;
 import com.example.paf_backend_2025.dtos.NotificationDTO;
 import com.example.paf_backend_2025.models.*;
 import com.example.paf_backend_2025.repositories.*;
+import com.mongodb.DBRef;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class LikeService {
 
     private final LikeRepository likeRepository;
-    private final AppUserRepository appUserRepository;
+    private final UserCache userCache;
     private final PostRepository postRepository;
 
-    private final NotificationService notificationService;
+    private final MongoTemplate mongoTemplate;
+    private final PostCounterService postCounterService;
+
+    private final NotificationPublisher notificationPublisher;
+
+    @Value("${app.likes.batch.max-posts:50}")
+    private int maxBatchPosts;
 
     @Autowired
     public LikeService(LikeRepository likeRepository,
-                       AppUserRepository appUserRepository,
-                       PostRepository postRepository,NotificationService notificationService) {
+                       UserCache userCache,
+                       PostRepository postRepository,
+                       MongoTemplate mongoTemplate,
+                       PostCounterService postCounterService,
+                       NotificationPublisher notificationPublisher) {
         this.likeRepository = likeRepository;
-        this.appUserRepository = appUserRepository;
+        this.userCache = userCache;
         this.postRepository = postRepository;
-        this.notificationService = notificationService;
+        this.mongoTemplate = mongoTemplate;
+        this.postCounterService = postCounterService;
+        this.notificationPublisher = notificationPublisher;
     }
 
     public List<LikeResponseDTO> getLikesByPost(String postId) {
@@ -45,19 +65,9 @@ public class LikeService {
     }
 
     public LikeResponseDTO createLike(LikeDTO likeDTO) {
-        // Check if like already exists
-        Optional<Like> existingLike = likeRepository.findByUserIdAndPostId(
-                likeDTO.getUserId(),
-                likeDTO.getPostId()
-        );
-
-        if (existingLike.isPresent()) {
-            return convertToDTO(existingLike.get());
-        }
-
         Like like = new Like();
 
-        AppUser user = appUserRepository.findById(likeDTO.getUserId())
+        AppUser user = userCache.findById(likeDTO.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         like.setUser(user);
 
@@ -65,27 +75,150 @@ public class LikeService {
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         like.setPost(post);
 
-        Like savedLike = likeRepository.save(like);
+        // Double-taps return the existing like; if it is removed in between, the insert is retried once
+        for (int attempt = 0; attempt < 2; attempt++) {
+            ObjectId likeId = insertIfAbsent(user.getId(), post.getId(), like.getCreatedAt());
+            if (likeId == null) {
+                Like existing = mongoTemplate.findOne(pair(user.getId(), post.getId()), Like.class);
+                if (existing != null) {
+                    return convertToDTO(existing);
+                }
+                continue;
+            }
+            like.setId(likeId.toHexString());
+            postCounterService.increment(post.getId(), PostCounterService.LIKE_COUNT);
+
+            notificationPublisher.publish(new NotificationEvent(
+                    post.getAuthor() != null ? post.getAuthor().getId() : post.getUser().getId(),
+                    "You have a new like for your post",
+                    like.getUser().getFirstName() + " has liked to your post",
+                    NotificationEvent.TYPE_LIKE,
+                    post.getId(),
+                    like.getUser().getId(),
+                    like.getUser().getFirstName()
+            ));
+            return convertToDTO(like);
+        }
+        throw new IllegalStateException("Like on post " + post.getId() + " changed concurrently");
+    }
+
+    /**
+     * Likes or unlikes in one round trip: removes the like if it exists,
+     * otherwise inserts one without loading the user or post first.
+     * Empty when the post does not exist.
+     */
+    public Optional<LikeToggleDTO> toggleLike(LikeDTO likeDTO) {
+        String userId = likeDTO.getUserId();
+        String postId = likeDTO.getPostId();
+        if (userId == null || postId == null || !ObjectId.isValid(userId) || !ObjectId.isValid(postId)) {
+            throw new IllegalArgumentException("Invalid user or post id");
+        }
 
-        notificationService.createNotification(
-                post.getUser().getId(),
-                "You have a new like for your post",
-                like.getUser().getFirstName() + " has liked to your post"
-        );
-        return convertToDTO(savedLike);
+        if (mongoTemplate.findAndRemove(pair(userId, postId), Document.class, "likes") != null) {
+            return Optional.of(new LikeToggleDTO(false,
+                    postCounterService.decrementAndGet(postId, PostCounterService.LIKE_COUNT)));
+        }
+
+        ObjectId likeId = insertIfAbsent(userId, postId, new Date());
+        if (likeId == null) {
+            // A concurrent request liked it first
+            return Optional.of(new LikeToggleDTO(true, postCounterService.get(postId, PostCounterService.LIKE_COUNT)));
+        }
+
+        Long likeCount = postCounterService.incrementAndGet(postId, PostCounterService.LIKE_COUNT);
+        if (likeCount == null) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(likeId)), "likes");
+            return Optional.empty();
+        }
+        notificationPublisher.publish(NotificationEvent.forPostActivity(NotificationEvent.TYPE_LIKE, postId, userId));
+        return Optional.of(new LikeToggleDTO(true, likeCount));
     }
 
     public boolean deleteLike(String likeId) {
-        Optional<Like> like = likeRepository.findById(likeId);
-        if (like.isPresent()) {
-            likeRepository.deleteById(likeId);
-            return true;
+        if (!ObjectId.isValid(likeId)) {
+            return false;
+        }
+        // Raw document so the post id is known without loading the like's DBRefs
+        Query query = Query.query(Criteria.where("_id").is(new ObjectId(likeId)));
+        query.fields().include("post");
+        Document removed = mongoTemplate.findAndRemove(query, Document.class, "likes");
+        if (removed == null) {
+            return false;
+        }
+        DBRef post = removed.get("post", DBRef.class);
+        if (post != null) {
+            postCounterService.decrement(post.getId().toString(), PostCounterService.LIKE_COUNT);
         }
-        return false;
+        return true;
     }
 
     public boolean hasUserLikedPost(String userId, String postId) {
-        return likeRepository.findByUserIdAndPostId(userId, postId).isPresent();
+        return !findLikedPostIds(userId, List.of(postId)).isEmpty();
+    }
+
+    /**
+     * Which of the given posts the user has liked, answered with one $in query
+     * on the user_post_idx index instead of one lookup per post. At most
+     * app.likes.batch.max-posts ids per call.
+     */
+    public Set<String> getLikedPostIds(String userId, Collection<String> postIds) {
+        if (postIds != null && postIds.stream().filter(Objects::nonNull).distinct().count() > maxBatchPosts) {
+            throw new IllegalArgumentException("At most " + maxBatchPosts + " posts per request");
+        }
+        return findLikedPostIds(userId, postIds);
+    }
+
+    private Set<String> findLikedPostIds(String userId, Collection<String> postIds) {
+        if (userId == null || !ObjectId.isValid(userId) || postIds == null || postIds.isEmpty()) {
+            return Set.of();
+        }
+        List<ObjectId> ids = postIds.stream()
+                .filter(ObjectId::isValid)
+                .map(ObjectId::new)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        Query query = Query.query(Criteria.where("user.$id").is(new ObjectId(userId)).and("post.$id").in(ids));
+        query.fields().include("post").exclude("_id");
+        Set<String> liked = new HashSet<>();
+        for (Document like : mongoTemplate.find(query, Document.class, "likes")) {
+            DBRef post = like.get("post", DBRef.class);
+            if (post != null) {
+                liked.add(post.getId().toString());
+            }
+        }
+        return liked;
+    }
+
+    /**
+     * Inserts the (user, post) like unless one exists and returns its new id,
+     * or null when the pair is already liked. The upsert keeps repeats out
+     * even before LikeUniquenessMigration has built user_post_idx (or when
+     * migrations are disabled); once the index exists it also settles two
+     * upserts racing on the same pair.
+     */
+    private ObjectId insertIfAbsent(String userId, String postId, Date createdAt) {
+        // Only the ids are needed to write the DBRefs
+        AppUser user = new AppUser();
+        user.setId(userId);
+        Post post = new Post();
+        post.setId(postId);
+        Update update = new Update()
+                .setOnInsert("user", mongoTemplate.getConverter().toDBRef(user, null))
+                .setOnInsert("post", mongoTemplate.getConverter().toDBRef(post, null))
+                .setOnInsert("createdAt", createdAt);
+        try {
+            BsonValue upsertedId = mongoTemplate.upsert(pair(userId, postId), update, Like.class).getUpsertedId();
+            return upsertedId == null ? null : upsertedId.asObjectId().getValue();
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    private static Query pair(String userId, String postId) {
+        return Query.query(Criteria.where("user.$id").is(new ObjectId(userId))
+                .and("post.$id").is(new ObjectId(postId)));
     }
 
     private LikeResponseDTO convertToDTO(Like like) {
@@ -6,12 +6,14 @@ import com.example.paf_backend_2025.models.MediaType;
 import com.example.paf_backend_2025.models.Post;
 import com.example.paf_backend_2025.repositories.MediaTypeRepository;
 import com.example.paf_backend_2025.repositories.PostRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,12 +21,29 @@ public class MediaTypeService {
 
     private final MediaTypeRepository mediaTypeRepository;
     private final PostRepository postRepository;
+    private final PostSummaryService postSummaryService;
+
+    // Media of a post, keyed by post id. Writes invalidate only this node's
+    // entry, so the short TTL bounds how long other nodes serve stale media.
+    // Cached lists are unmodifiable since every caller shares them
+    private final Cache<String, List<MediaTypeResponseDTO>> mediaByPost;
+
+    @Value("${app.media.batch.max-posts:50}")
+    private int maxBatchPosts;
 
     @Autowired
     public MediaTypeService(MediaTypeRepository mediaTypeRepository,
-                            PostRepository postRepository) {
+                            PostRepository postRepository,
+                            PostSummaryService postSummaryService,
+                            @Value("${app.media.cache.max-size:10000}") long cacheSize,
+                            @Value("${app.media.cache.ttl-seconds:60}") long cacheTtlSeconds) {
         this.mediaTypeRepository = mediaTypeRepository;
         this.postRepository = postRepository;
+        this.postSummaryService = postSummaryService;
+        this.mediaByPost = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
     }
 
     public List<MediaTypeResponseDTO> getAllMediaTypes() {
@@ -34,10 +53,33 @@ public class MediaTypeService {
     }
 
     public List<MediaTypeResponseDTO> getMediaTypesByPost(String postId) {
-        return mediaTypeRepository.findAll().stream()
-                .filter(mediaType -> postId.equals(mediaType.getPostId()))
+        return mediaByPost.get(postId, id -> mediaTypeRepository.findByPostIdOrderByIdAsc(id).stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .toList());
+    }
+
+    /**
+     * Media for a page of posts with one query for all uncached posts. Every
+     * requested id is present in the result, with an empty list if the post
+     * has no media. At most app.media.batch.max-posts ids per call.
+     */
+    public Map<String, List<MediaTypeResponseDTO>> getMediaTypesByPosts(Collection<String> postIds) {
+        Set<String> ids = postIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.size() > maxBatchPosts) {
+            throw new IllegalArgumentException("At most " + maxBatchPosts + " posts per request");
+        }
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return mediaByPost.getAll(ids, missing -> {
+            Map<String, List<MediaTypeResponseDTO>> found = new HashMap<>();
+            missing.forEach(id -> found.put(id, new ArrayList<>()));
+            for (MediaType mediaType : mediaTypeRepository.findByPostIdInOrderByIdAsc(List.copyOf(missing))) {
+                found.get(mediaType.getPostId()).add(convertToDTO(mediaType));
+            }
+            found.replaceAll((id, media) -> List.copyOf(media));
+            return found;
+        });
     }
 
     public Optional<MediaTypeResponseDTO> getMediaTypeById(String id) {
@@ -49,16 +91,14 @@ public class MediaTypeService {
         MediaType mediaType = new MediaType();
         mediaType.setType(mediaTypeDTO.getType());
         mediaType.setUrl(mediaTypeDTO.getUrl());
-        mediaType.setPostId(mediaType.getPostId());
 
         // Set post reference
         Post post = postRepository.findById(mediaTypeDTO.getPostId())
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-
-
-
+        mediaType.setPostId(post.getId());
 
         MediaType savedMediaType = mediaTypeRepository.save(mediaType);
+        mediaByPost.invalidate(post.getId());
         return convertToDTO(savedMediaType);
     }
 
@@ -71,16 +111,30 @@ public class MediaTypeService {
 
 
                     MediaType updatedMediaType = mediaTypeRepository.save(existingMediaType);
+                    postSummaryService.refreshMedia(updatedMediaType);
+                    invalidatePost(updatedMediaType.getPostId());
                     return convertToDTO(updatedMediaType);
                 });
     }
 
     public boolean deleteMediaType(String id) {
-        if (mediaTypeRepository.existsById(id)) {
-            mediaTypeRepository.deleteById(id);
-            return true;
+        return mediaTypeRepository.findById(id)
+                .map(mediaType -> {
+                    mediaTypeRepository.deleteById(id);
+                    invalidatePost(mediaType.getPostId());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    public void clearCache() {
+        mediaByPost.invalidateAll();
+    }
+
+    private void invalidatePost(String postId) {
+        if (postId != null) {
+            mediaByPost.invalidate(postId);
         }
-        return false;
     }
 
     private MediaTypeResponseDTO convertToDTO(MediaType mediaType) {
@@ -0,0 +1,244 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.Notification;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes batches of notification events, folding likes and comments on the
+ * same target into one document per recipient and fixed time window
+ * ("Alice and 41 others liked your post"). actorCount counts distinct actors.
+ */
+@Service
+public class NotificationCoalescer {
+
+    private final MongoTemplate mongoTemplate;
+    private final long windowMillis;
+    private final int sampleSize;
+
+    public NotificationCoalescer(MongoTemplate mongoTemplate,
+                                 @Value("${app.notifications.coalesce.window-minutes:60}") long windowMinutes,
+                                 @Value("${app.notifications.coalesce.sample-size:3}") int sampleSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Persists the events and returns the resulting notification documents by
+     * recipient id, with coalesced ones in their updated state.
+     */
+    public Map<String, List<Notification>> write(List<NotificationEvent> events) {
+        events = resolve(events);
+        Map<String, List<Notification>> written = new LinkedHashMap<>();
+        List<Notification> inserts = new ArrayList<>();
+        List<String> insertRecipients = new ArrayList<>();
+        Map<String, List<NotificationEvent>> groups = new LinkedHashMap<>();
+        for (NotificationEvent event : events) {
+            if (event.isCoalescable()) {
+                groups.computeIfAbsent(coalesceKey(event), k -> new ArrayList<>()).add(event);
+            } else {
+                inserts.add(toNotification(event));
+                insertRecipients.add(event.getRecipientId());
+            }
+        }
+
+        for (Map.Entry<String, List<NotificationEvent>> group : groups.entrySet()) {
+            Notification merged = coalesce(group.getKey(), group.getValue());
+            written.computeIfAbsent(merged.getNotifiedTo().getId(), id -> new ArrayList<>()).add(merged);
+        }
+
+        if (!inserts.isEmpty()) {
+            // insert() hands back the same instances in order, now carrying their ids
+            List<Notification> saved = new ArrayList<>(mongoTemplate.insert(inserts, Notification.class));
+            for (int i = 0; i < saved.size(); i++) {
+                written.computeIfAbsent(insertRecipients.get(i), id -> new ArrayList<>()).add(saved.get(i));
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Upserts the window's document on its coalesceKey, so concurrent workers
+     * always land on the same one, then adds each actor not already stored,
+     * counting it in actorCount in the same update, and brings sampleActors
+     * up to date. actorIds is never read back, so it costs nothing per write.
+     */
+    private Notification coalesce(String key, List<NotificationEvent> group) {
+        NotificationEvent latest = group.get(group.size() - 1);
+        AppUser recipient = new AppUser();
+        recipient.setId(latest.getRecipientId());
+
+        Update update = new Update()
+                .setOnInsert("notifiedTo", mongoTemplate.getConverter().toDBRef(recipient, null))
+                .setOnInsert("type", latest.getType())
+                .setOnInsert("targetId", latest.getTargetId())
+                .setOnInsert("windowStart", windowStart(latest))
+                .set("title", latest.getTitle())
+                .set("message", latest.getMessage())
+                .set("createdAt", latest.getCreatedAt())
+                .set("read", false);
+        try {
+            mongoTemplate.upsert(byKey(key), update, Notification.class);
+        } catch (DuplicateKeyException e) {
+            // Another worker inserted the same window first; this attempt updates it
+            mongoTemplate.upsert(byKey(key), update, Notification.class);
+        }
+
+        // Only matches while the actor is missing, so a repeat or concurrent add counts once
+        BulkOperations actors = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+        for (String actor : actorKeys(group)) {
+            actors.updateOne(Query.query(Criteria.where("coalesceKey").is(key).and("actorIds").ne(actor)),
+                    new Update().push("actorIds", actor).inc("actorCount", 1));
+        }
+        actors.execute();
+
+        // Compare-and-set on the stored sample: a concurrent writer makes this miss and re-read
+        List<String> fresh = newestActors(group);
+        Notification merged = mongoTemplate.findOne(byKey(key), Notification.class);
+        for (int attempt = 0; attempt < 3 && merged != null; attempt++) {
+            List<String> stored = merged.getSampleActors();
+            List<String> sample = mergeSample(fresh, stored);
+            if (sample.equals(stored)) {
+                break;
+            }
+            Query unchanged = byKey(key).addCriteria(Criteria.where("sampleActors").is(stored));
+            Notification updated = mongoTemplate.findAndModify(unchanged, Update.update("sampleActors", sample),
+                    FindAndModifyOptions.options().returnNew(true), Notification.class);
+            merged = updated != null ? updated : mongoTemplate.findOne(byKey(key), Notification.class);
+            if (updated != null) {
+                break;
+            }
+        }
+        if (merged == null) {
+            throw new IllegalStateException("Coalesced notification " + key + " disappeared while writing");
+        }
+        // Lazy proxy would load the recipient just to read its id
+        merged.setNotifiedTo(recipient);
+        return merged;
+    }
+
+    private static Query byKey(String key) {
+        Query query = Query.query(Criteria.where("coalesceKey").is(key));
+        query.fields().exclude("actorIds");
+        return query;
+    }
+
+    // Tumbling windows, so every writer derives the same key for the same event
+    private String coalesceKey(NotificationEvent event) {
+        return event.getRecipientId() + '|' + event.getType() + '|' + event.getTargetId()
+                + '|' + windowStart(event).getTime();
+    }
+
+    private Date windowStart(NotificationEvent event) {
+        long time = event.getCreatedAt().getTime();
+        return new Date(time - Math.floorMod(time, windowMillis));
+    }
+
+    private static List<String> actorKeys(List<NotificationEvent> group) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (NotificationEvent event : group) {
+            // Events from older call sites carry only a name
+            keys.add(event.getActorId() != null ? event.getActorId() : "name:" + event.getActorName());
+        }
+        return new ArrayList<>(keys);
+    }
+
+    // Newest names first, each name once, at most sampleSize of them
+    private List<String> mergeSample(List<String> fresh, List<String> stored) {
+        Set<String> sample = new LinkedHashSet<>(fresh);
+        if (stored != null) {
+            sample.addAll(stored);
+        }
+        return sample.stream().limit(sampleSize).toList();
+    }
+
+    /**
+     * Fills in the recipient and actor name of id-only events with one $in
+     * query for their posts and one for their actors. Events whose post no
+     * longer exists are dropped.
+     */
+    private List<NotificationEvent> resolve(List<NotificationEvent> events) {
+        if (events.stream().allMatch(NotificationEvent::isResolved)) {
+            return events;
+        }
+        Set<ObjectId> postIds = new HashSet<>();
+        Set<ObjectId> actorIds = new HashSet<>();
+        for (NotificationEvent event : events) {
+            if (!event.isResolved()) {
+                postIds.add(new ObjectId(event.getTargetId()));
+                actorIds.add(new ObjectId(event.getActorId()));
+            }
+        }
+
+        Query postQuery = Query.query(Criteria.where("_id").in(postIds));
+        postQuery.fields().include("author").include("user");
+        Map<String, String> authors = new HashMap<>();
+        for (Document post : mongoTemplate.find(postQuery, Document.class, "posts")) {
+            Document author = post.get("author", Document.class);
+            DBRef user = post.get("user", DBRef.class);
+            Object authorId = author != null && author.get("_id") != null ? author.get("_id") : user != null ? user.getId() : null;
+            if (authorId != null) {
+                authors.put(post.getObjectId("_id").toHexString(), authorId.toString());
+            }
+        }
+
+        Query actorQuery = Query.query(Criteria.where("_id").in(actorIds));
+        actorQuery.fields().include("firstName");
+        Map<String, String> names = new HashMap<>();
+        for (Document actor : mongoTemplate.find(actorQuery, Document.class, "app_users")) {
+            names.put(actor.getObjectId("_id").toHexString(), actor.getString("firstName"));
+        }
+
+        List<NotificationEvent> resolved = new ArrayList<>(events.size());
+        for (NotificationEvent event : events) {
+            if (event.isResolved()) {
+                resolved.add(event);
+                continue;
+            }
+            String recipientId = authors.get(event.getTargetId());
+            if (recipientId != null) {
+                resolved.add(event.resolve(recipientId, names.getOrDefault(event.getActorId(), "Someone")));
+            }
+        }
+        return resolved;
+    }
+
+    private List<String> newestActors(List<NotificationEvent> group) {
+        List<String> actors = new ArrayList<>();
+        for (int i = group.size() - 1; i >= 0 && actors.size() < sampleSize; i--) {
+            String name = group.get(i).getActorName();
+            if (name != null && !actors.contains(name)) {
+                actors.add(name);
+            }
+        }
+        return actors;
+    }
+
+    private static Notification toNotification(NotificationEvent event) {
+        // Only the id is needed to write the DBRef, so the recipient is never loaded
+        AppUser recipient = new AppUser();
+        recipient.setId(event.getRecipientId());
+
+        Notification notification = new Notification();
+        notification.setNotifiedTo(recipient);
+        notification.setTitle(event.getTitle());
+        notification.setMessage(event.getMessage());
+        notification.setCreatedAt(event.getCreatedAt());
+        return notification;
+    }
+}
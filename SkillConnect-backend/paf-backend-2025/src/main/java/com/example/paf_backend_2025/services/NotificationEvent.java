@@ -0,0 +1,99 @@
+package com.example.paf_backend_2025.services;
+
+import java.util.Date;
+
+/**
+ * A notification waiting in the in-process queue to be persisted.
+ * Events with a type and targetId may be coalesced with others for the same
+ * recipient, type and target. Events built with {@link #forPostActivity} only
+ * carry ids; the writer resolves the recipient and actor name in batches.
+ */
+public class NotificationEvent {
+    public static final String TYPE_LIKE = "LIKE";
+    public static final String TYPE_COMMENT = "COMMENT";
+
+    private final String recipientId;
+    private final String title;
+    private final String message;
+    private final String type;
+    private final String targetId;
+    private final String actorName;
+    private final String actorId;
+    private final Date createdAt;
+
+    public NotificationEvent(String recipientId, String title, String message) {
+        this(recipientId, title, message, null, null, null, null);
+    }
+
+    public NotificationEvent(String recipientId, String title, String message,
+                             String type, String targetId, String actorId, String actorName) {
+        this(recipientId, title, message, type, targetId, actorName, actorId, new Date());
+    }
+
+    private NotificationEvent(String recipientId, String title, String message, String type,
+                              String targetId, String actorName, String actorId, Date createdAt) {
+        this.recipientId = recipientId;
+        this.title = title;
+        this.message = message;
+        this.type = type;
+        this.targetId = targetId;
+        this.actorName = actorName;
+        this.actorId = actorId;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * A like/comment on a post whose author and actor have not been loaded.
+     */
+    public static NotificationEvent forPostActivity(String type, String postId, String actorId) {
+        return new NotificationEvent(null, null, null, type, postId, null, actorId, new Date());
+    }
+
+    public NotificationEvent resolve(String recipientId, String actorName) {
+        String title = TYPE_COMMENT.equals(type)
+                ? "You have a new comment for your post"
+                : "You have a new like for your post";
+        String message = actorName + (TYPE_COMMENT.equals(type) ? " has commented to your post" : " has liked to your post");
+        return new NotificationEvent(recipientId, title, message, type, targetId, actorName, actorId, createdAt);
+    }
+
+    public boolean isCoalescable() {
+        return type != null && targetId != null;
+    }
+
+    public boolean isResolved() {
+        return recipientId != null;
+    }
+
+    public String getRecipientId() {
+        return recipientId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public String getActorId() {
+        return actorId;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.NotificationDTO;
+import com.example.paf_backend_2025.dtos.NotificationPipelineStatsDTO;
+import com.example.paf_backend_2025.models.Notification;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moves notification persistence off the like/comment request threads.
+ * <p>
+ * Events go into a bounded queue and a small worker pool drains them in
+ * batches, handing each batch to NotificationCoalescer, which folds repeated
+ * likes/comments and inserts the rest with a single insertMany. When the
+ * queue is full the configured overflow policy applies: DROP discards the
+ * event at once, BLOCK waits up to block-timeout-ms for space and then
+ * discards it. Once a batch is stored, recipients with an open stream are
+ * pushed the new notifications and their unread count.
+ */
+@Service
+public class NotificationPublisher {
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationPublisher.class);
+
+    private final NotificationCoalescer notificationCoalescer;
+    private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
+    private final BlockingQueue<NotificationEvent> queue;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final int workerCount;
+    private final int batchSize;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong blockedMillis = new AtomicLong();
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public NotificationPublisher(NotificationCoalescer notificationCoalescer,
+                                 NotificationService notificationService,
+                                 NotificationStreamService notificationStreamService,
+                                 @Value("${app.notifications.queue.capacity:10000}") int capacity,
+                                 @Value("${app.notifications.queue.overflow:BLOCK}") OverflowPolicy overflowPolicy,
+                                 @Value("${app.notifications.queue.block-timeout-ms:50}") long blockTimeoutMillis,
+                                 @Value("${app.notifications.queue.workers:2}") int workerCount,
+                                 @Value("${app.notifications.queue.batch-size:200}") int batchSize) {
+        this.notificationCoalescer = notificationCoalescer;
+        this.notificationService = notificationService;
+        this.notificationStreamService = notificationStreamService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::drainLoop, "notification-writer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Flush whatever arrived after the workers exited
+        List<NotificationEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            persist(remaining);
+        }
+    }
+
+    /**
+     * Queues a notification. Returns false when it was dropped because the queue is full.
+     */
+    public boolean publish(NotificationEvent event) {
+        published.incrementAndGet();
+        boolean accepted = queue.offer(event);
+        if (!accepted && overflowPolicy == OverflowPolicy.BLOCK) {
+            long start = System.nanoTime();
+            try {
+                accepted = queue.offer(event, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            blockedMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        if (!accepted) {
+            dropped.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    public NotificationPipelineStatsDTO getStats() {
+        NotificationPipelineStatsDTO stats = new NotificationPipelineStatsDTO();
+        stats.setOverflowPolicy(overflowPolicy.name());
+        stats.setQueueDepth(queue.size());
+        stats.setQueueCapacity(capacity);
+        stats.setPublished(published.get());
+        stats.setPersisted(persisted.get());
+        stats.setDropped(dropped.get());
+        stats.setFailed(failed.get());
+        stats.setBatches(batches.get());
+        stats.setBlockedMillis(blockedMillis.get());
+        return stats;
+    }
+
+    private void drainLoop() {
+        List<NotificationEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                NotificationEvent first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<NotificationEvent> events) {
+        Map<String, List<Notification>> written;
+        try {
+            written = notificationCoalescer.write(events);
+            persisted.addAndGet(events.size());
+            batches.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.addAndGet(events.size());
+            log.error("Failed to persist {} notifications", events.size(), e);
+            return;
+        }
+        push(written);
+    }
+
+    private void push(Map<String, List<Notification>> written) {
+        written.forEach((recipientId, notifications) -> {
+            if (!notificationStreamService.hasSubscribers(recipientId)) {
+                return;
+            }
+            try {
+                List<NotificationDTO> dtos = notifications.stream()
+                        .map(notificationService::convertToDTO)
+                        .collect(Collectors.toList());
+                notificationStreamService.pushNotifications(recipientId, dtos,
+                        notificationService.getUnreadCountByUserId(recipientId));
+            } catch (RuntimeException e) {
+                log.warn("Failed to push notifications to {}", recipientId, e);
+            }
+        });
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.paf_backend_2025.services;
 
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.NotificationDTO;
 import com.example.paf_backend_2025.models.AppUser;
 import com.example.paf_backend_2025.models.Notification;
-import com.example.paf_backend_2025.repositories.AppUserRepository;
+import com.example.paf_backend_2025.repositories.KeysetCursor;
 import com.example.paf_backend_2025.repositories.NotificationRepository;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,21 +29,27 @@ public class NotificationService {
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private AppUserRepository appUserRepository;
+    private UserCache userCache;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Value("${app.notifications.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.notifications.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Newest page of the user's notifications. The old endpoint used to return
+     * every notification; it is now bounded like the paginated one.
+     */
     public List<NotificationDTO> getNotificationsByUserId(String userId) {
         try {
-            Optional<AppUser> userOpt = appUserRepository.findById(userId);
-            if (userOpt.isEmpty()) return List.of();
-
-            return notificationRepository.findAll().stream()
-                    .filter(notification -> notification.getNotifiedTo().getId().equals(userId))
-                    .map(notification -> new NotificationDTO(
-                            notification.getId(),
-                            notification.getTitle(),
-                            notification.getMessage(),
-                            notification.getCreatedAt()))
-                    .collect(Collectors.toList());
+            return getNotifications(userId, null, false, null).getItems();
         } catch (Exception e) {
             System.out.println("Error while fetching notifications for userId: " + userId);
             e.printStackTrace(); // This gives full stack trace
@@ -41,15 +57,93 @@ public class NotificationService {
         }
     }
 
+    /**
+     * Newest-first page of one recipient's notifications, served by the
+     * recipient_created_idx index instead of scanning the collection.
+     */
+    public CursorPageDTO<NotificationDTO> getNotifications(String userId, String cursor, boolean unreadOnly, Integer limit) {
+        if (!ObjectId.isValid(userId)) {
+            return new CursorPageDTO<>(List.of(), null);
+        }
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        KeysetCursor position = KeysetCursor.parse(cursor);
+
+        Criteria criteria = recipient(userId);
+        if (unreadOnly) {
+            criteria = criteria.and("read").ne(true);
+        }
+        if (position != null) {
+            criteria = criteria.andOperator(position.before("createdAt"));
+        }
+        Query query = new Query(criteria)
+                .with(KeysetCursor.newestFirst("createdAt"))
+                .limit(pageSize + 1);
+        // Coalesced documents keep every actor id, which the page never shows
+        query.fields().exclude("actorIds");
 
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+        String nextCursor = null;
+        if (notifications.size() > pageSize) {
+            notifications = notifications.subList(0, pageSize);
+            Notification last = notifications.get(pageSize - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        List<NotificationDTO> items = notifications.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return new CursorPageDTO<>(items, nextCursor);
+    }
 
     public long getNotificationCountByUserId(String userId) {
-        Optional<AppUser> userOpt = appUserRepository.findById(userId);
-        return userOpt.map(notificationRepository::countByNotifiedTo).orElse(0L);
+        if (!ObjectId.isValid(userId)) {
+            return 0;
+        }
+        return mongoTemplate.count(new Query(recipient(userId)), Notification.class);
+    }
+
+    public long getUnreadCountByUserId(String userId) {
+        if (!ObjectId.isValid(userId)) {
+            return 0;
+        }
+        return mongoTemplate.count(new Query(recipient(userId).and("read").ne(true)), Notification.class);
+    }
+
+    public boolean markAsRead(String notificationId) {
+        if (!ObjectId.isValid(notificationId)) {
+            return false;
+        }
+        // Raw document so the recipient id comes back without touching the lazy DBRef
+        Query query = Query.query(Criteria.where("_id").is(new ObjectId(notificationId)));
+        query.fields().include("notifiedTo").include("read");
+        Document previous = mongoTemplate.findAndModify(query, Update.update("read", true), Document.class, "notifications");
+        if (previous == null) {
+            return false;
+        }
+        DBRef recipient = previous.get("notifiedTo", DBRef.class);
+        if (recipient != null && !previous.getBoolean("read", false)) {
+            pushUnreadCount(recipient.getId().toString());
+        }
+        return true;
+    }
+
+    public long markAllAsRead(String userId) {
+        if (!ObjectId.isValid(userId)) {
+            return 0;
+        }
+        long modified = mongoTemplate.updateMulti(new Query(recipient(userId).and("read").ne(true)),
+                Update.update("read", true), Notification.class).getModifiedCount();
+        if (modified > 0) {
+            pushUnreadCount(userId);
+        }
+        return modified;
+    }
+
+    public SseEmitter subscribe(String userId) {
+        return notificationStreamService.subscribe(userId, getUnreadCountByUserId(userId));
     }
 
     public Notification createNotification(String userId, String title, String message) {
-        Optional<AppUser> userOpt = appUserRepository.findById(userId);
+        Optional<AppUser> userOpt = userCache.findById(userId);
         if (userOpt.isEmpty()) return null;
 
         Notification notif = new Notification();
@@ -67,4 +161,41 @@ public class NotificationService {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    public NotificationDTO convertToDTO(Notification notification) {
+        NotificationDTO dto = new NotificationDTO(
+                notification.getId(),
+                notification.getTitle(),
+                describe(notification),
+                notification.isRead(),
+                notification.getCreatedAt());
+        dto.setType(notification.getType());
+        dto.setTargetId(notification.getTargetId());
+        dto.setActorCount(notification.getActorCount());
+        dto.setSampleActors(notification.getSampleActors());
+        return dto;
+    }
+
+    private void pushUnreadCount(String userId) {
+        if (notificationStreamService.hasSubscribers(userId)) {
+            notificationStreamService.pushUnreadCount(userId, getUnreadCountByUserId(userId));
+        }
+    }
+
+    // Coalesced notifications are rendered as "Alice and 41 others liked your post"
+    private static String describe(Notification notification) {
+        List<String> actors = notification.getSampleActors();
+        if (notification.getActorCount() <= 1 || actors == null || actors.isEmpty()) {
+            return notification.getMessage();
+        }
+        String action = NotificationEvent.TYPE_COMMENT.equals(notification.getType())
+                ? "commented on your post"
+                : "liked your post";
+        int others = notification.getActorCount() - 1;
+        return actors.get(0) + " and " + others + (others == 1 ? " other " : " others ") + action;
+    }
+
+    private static Criteria recipient(String userId) {
+        return Criteria.where("notifiedTo.$id").is(new ObjectId(userId));
+    }
+}
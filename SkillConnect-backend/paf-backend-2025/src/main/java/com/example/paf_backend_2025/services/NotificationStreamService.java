@@ -0,0 +1,107 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.NotificationDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+
+/**
+ * Server-Sent Events channel for notifications and unread counts.
+ * <p>
+ * Emitters run on servlet async I/O, so an idle connection holds no request
+ * thread; sends are handed to a small executor so a slow client never stalls
+ * the notification writers.
+ */
+@Service
+public class NotificationStreamService {
+
+    public static final String EVENT_NOTIFICATION = "notification";
+    public static final String EVENT_UNREAD_COUNT = "unread-count";
+
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final Executor streamExecutor;
+    private final long timeoutMillis;
+
+    public NotificationStreamService(@Qualifier("notificationStreamExecutor") Executor streamExecutor,
+                                     @Value("${app.notifications.stream.timeout-ms:1800000}") long timeoutMillis) {
+        this.streamExecutor = streamExecutor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter subscribe(String userId, long unreadCount) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Set<SseEmitter> userEmitters = emitters.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>());
+        userEmitters.add(emitter);
+
+        Runnable remove = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        send(userId, emitter, SseEmitter.event().name(EVENT_UNREAD_COUNT).data(unreadCount));
+        return emitter;
+    }
+
+    public boolean hasSubscribers(String userId) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        return userEmitters != null && !userEmitters.isEmpty();
+    }
+
+    public int getConnectionCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public void pushNotifications(String userId, List<NotificationDTO> notifications, long unreadCount) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+        streamExecutor.execute(() -> {
+            for (SseEmitter emitter : userEmitters) {
+                for (NotificationDTO notification : notifications) {
+                    send(userId, emitter, SseEmitter.event().name(EVENT_NOTIFICATION).id(notification.getId()).data(notification));
+                }
+                send(userId, emitter, SseEmitter.event().name(EVENT_UNREAD_COUNT).data(unreadCount));
+            }
+        });
+    }
+
+    public void pushUnreadCount(String userId, long unreadCount) {
+        pushNotifications(userId, List.of(), unreadCount);
+    }
+
+    // Comment frames keep proxies from closing idle streams and flush out dead connections
+    @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> streamExecutor.execute(() -> {
+            for (SseEmitter emitter : userEmitters) {
+                send(userId, emitter, SseEmitter.event().comment("keepalive"));
+            }
+        }));
+    }
+
+    private void send(String userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            removeEmitter(userId, emitter);
+        }
+    }
+
+    private void removeEmitter(String userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+}
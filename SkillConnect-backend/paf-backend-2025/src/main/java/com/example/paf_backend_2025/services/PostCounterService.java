@@ -0,0 +1,187 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.models.Post;
+import com.example.paf_backend_2025.repositories.DBRefExpressions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the likeCount/commentCount fields on posts. Likes and comments adjust
+ * them with atomic $inc; a periodic reconciliation recounts from the likes and
+ * comments collections and repairs any post whose stored value has drifted,
+ * using a conditional update so it never clobbers a concurrent $inc.
+ */
+@Service
+public class PostCounterService {
+
+    public static final String LIKE_COUNT = "likeCount";
+    public static final String COMMENT_COUNT = "commentCount";
+
+    private static final Logger log = LoggerFactory.getLogger(PostCounterService.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.counters.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    @Value("${app.counters.reconcile.batch-size:500}")
+    private int batchSize;
+
+    public PostCounterService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void increment(String postId, String counter) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(postId)),
+                new Update().inc(counter, 1), Post.class);
+    }
+
+    // Never takes a counter below zero; reconciliation corrects any undercount
+    public void decrement(String postId, String counter) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(postId).and(counter).gt(0)),
+                new Update().inc(counter, -1), Post.class);
+    }
+
+    /**
+     * Increments the counter and returns its new value, or null when the post does not exist.
+     */
+    public Long incrementAndGet(String postId, String counter) {
+        Query query = byId(postId);
+        query.fields().include(counter);
+        Document post = mongoTemplate.findAndModify(query, new Update().inc(counter, 1),
+                FindAndModifyOptions.options().returnNew(true), Document.class, "posts");
+        return post == null ? null : storedCount(post, counter);
+    }
+
+    public long decrementAndGet(String postId, String counter) {
+        Query query = byId(postId).addCriteria(Criteria.where(counter).gt(0));
+        query.fields().include(counter);
+        Document post = mongoTemplate.findAndModify(query, new Update().inc(counter, -1),
+                FindAndModifyOptions.options().returnNew(true), Document.class, "posts");
+        return post == null ? 0 : storedCount(post, counter);
+    }
+
+    public long get(String postId, String counter) {
+        Query query = byId(postId);
+        query.fields().include(counter);
+        Document post = mongoTemplate.findOne(query, Document.class, "posts");
+        return post == null ? 0 : Math.max(storedCount(post, counter), 0);
+    }
+
+    @Async("maintenanceExecutor")
+    @Scheduled(cron = "${app.counters.reconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        try {
+            long repaired = reconcileAll();
+            if (repaired > 0) {
+                log.info("Repaired like/comment counters on {} posts", repaired);
+            }
+        } catch (RuntimeException e) {
+            log.error("Post counter reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Recounts likes and live comments for every post, walking _id order in
+     * batches, and returns how many posts had drifted.
+     */
+    public long reconcileAll() {
+        long repaired = 0;
+        ObjectId lastId = null;
+        while (true) {
+            Query query = new Query(lastId == null ? new Criteria() : Criteria.where("_id").gt(lastId))
+                    .with(Sort.by("_id"))
+                    .limit(batchSize);
+            query.fields().include(LIKE_COUNT).include(COMMENT_COUNT);
+            List<Document> posts = mongoTemplate.find(query, Document.class, "posts");
+            if (posts.isEmpty()) {
+                return repaired;
+            }
+
+            List<ObjectId> ids = posts.stream().map(post -> post.getObjectId("_id")).collect(Collectors.toList());
+            Map<ObjectId, Long> likes = countByPost("likes", Criteria.where("post.$id").in(ids));
+            Map<ObjectId, Long> comments = countByPost("comments",
+                    Criteria.where("post.$id").in(ids).and("deleteStatus").ne(true));
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "posts");
+            int changed = 0;
+            for (Document post : posts) {
+                ObjectId id = post.getObjectId("_id");
+                long likeCount = likes.getOrDefault(id, 0L);
+                long commentCount = comments.getOrDefault(id, 0L);
+                boolean drifted = false;
+                if (storedCount(post, LIKE_COUNT) != likeCount) {
+                    bulk.updateOne(unchanged(post, LIKE_COUNT), new Update().set(LIKE_COUNT, likeCount));
+                    drifted = true;
+                }
+                if (storedCount(post, COMMENT_COUNT) != commentCount) {
+                    bulk.updateOne(unchanged(post, COMMENT_COUNT), new Update().set(COMMENT_COUNT, commentCount));
+                    drifted = true;
+                }
+                if (drifted) {
+                    changed++;
+                }
+            }
+            if (changed > 0) {
+                bulk.execute();
+                repaired += changed;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * Matches the post only while the counter still holds the value read with
+     * the batch, so a like or comment $inc that lands during the recount is
+     * never overwritten; that post is left for the next run instead.
+     */
+    private static Query unchanged(Document post, String counter) {
+        return Query.query(Criteria.where("_id").is(post.getObjectId("_id")).and(counter).is(post.get(counter)));
+    }
+
+    // Raw document queries skip the entity mapping that turns "id" into an ObjectId _id
+    private static Query byId(String postId) {
+        return Query.query(Criteria.where("_id").is(ObjectId.isValid(postId) ? new ObjectId(postId) : postId));
+    }
+
+    private Map<ObjectId, Long> countByPost(String collection, Criteria criteria) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                context -> new Document("$group", new Document("_id", DBRefExpressions.refId("post")).append("count", new Document("$sum", 1))));
+
+        Map<ObjectId, Long> counts = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, collection, Document.class).getMappedResults()) {
+            if (row.get("_id") instanceof ObjectId id) {
+                counts.put(id, ((Number) row.get("count")).longValue());
+            }
+        }
+        return counts;
+    }
+
+    private static long storedCount(Document post, String field) {
+        Object value = post.get(field);
+        return value instanceof Number number ? number.longValue() : -1;
+    }
+}
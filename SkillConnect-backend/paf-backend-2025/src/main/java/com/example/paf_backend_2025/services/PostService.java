@@ -1,77 +1,156 @@
 package com.example.paf_backend_2025.services;
 
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
 import com.example.paf_backend_2025.dtos.PostDTO;
 import com.example.paf_backend_2025.dtos.PostResponseDTO;
 import com.example.paf_backend_2025.models.*;
 import com.example.paf_backend_2025.repositories.*;
+import com.mongodb.DBRef;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
 public class PostService {
 
     private final PostRepository postRepository;
-    private final AppUserRepository appUserRepository;
+    private final UserCache userCache;
     private final MediaTypeRepository mediaTypeRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TimelineService timelineService;
+    private final PostSummaryService postSummaryService;
+    private final LikeService likeService;
+    private final ContentSearchService contentSearchService;
+    private final SingleFlight<String, PostResponseDTO> postLoads;
+    private final Executor lookupExecutor;
+
+    @Value("${app.feed.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${app.feed.max-page-size:100}")
+    private int maxPageSize;
 
     @Autowired
     public PostService(PostRepository postRepository,
-                       AppUserRepository appUserRepository,
-                       MediaTypeRepository mediaTypeRepository) {
+                       UserCache userCache,
+                       MediaTypeRepository mediaTypeRepository,
+                       MongoTemplate mongoTemplate,
+                       TimelineService timelineService,
+                       PostSummaryService postSummaryService,
+                       LikeService likeService,
+                       ContentSearchService contentSearchService,
+                       @Qualifier("lookupExecutor") Executor lookupExecutor,
+                       @Value("${app.single-flight.negative-ttl-ms:2000}") long negativeTtlMillis,
+                       @Value("${app.single-flight.negative-max-size:10000}") long negativeMaxSize) {
         this.postRepository = postRepository;
-        this.appUserRepository = appUserRepository;
+        this.userCache = userCache;
         this.mediaTypeRepository = mediaTypeRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.timelineService = timelineService;
+        this.postSummaryService = postSummaryService;
+        this.likeService = likeService;
+        this.contentSearchService = contentSearchService;
+        this.postLoads = new SingleFlight<>(negativeTtlMillis, negativeMaxSize);
+        this.lookupExecutor = lookupExecutor;
     }
 
+    /**
+     * First page of the live feed. Kept for the old unbounded endpoint, which
+     * now returns at most one page instead of the whole collection.
+     */
     public List<PostResponseDTO> getAllPosts() {
-        return postRepository.findByDeleteStatusFalse().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return getFeed(null, null, null).getItems();
+    }
+
+    /**
+     * Newest-first feed page using a (createdAt, id) keyset cursor, served by
+     * the live_feed_idx index on posts. With a viewerId, each post also says
+     * whether that user liked it.
+     */
+    public CursorPageDTO<PostResponseDTO> getFeed(String cursor, Integer limit, String viewerId) {
+        int pageSize = resolvePageSize(limit);
+        KeysetCursor position = KeysetCursor.parse(cursor);
+
+        Criteria criteria = Criteria.where("deleteStatus").is(false);
+        if (position != null) {
+            criteria = criteria.andOperator(position.before("createdAt"));
+        }
+        Query query = new Query(criteria)
+                .with(KeysetCursor.newestFirst("createdAt"))
+                .limit(pageSize + 1);
+
+        List<Post> posts = mongoTemplate.find(query, Post.class);
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            Post last = posts.get(pageSize - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPageDTO<>(convertToDTOs(posts, viewerId), nextCursor);
+    }
+
+    public CursorPageDTO<PostResponseDTO> getTimeline(String userId, String cursor, Integer limit) {
+        CursorPageDTO<Post> page = timelineService.getTimeline(userId, cursor, resolvePageSize(limit));
+        return new CursorPageDTO<>(convertToDTOs(page.getItems(), userId), page.getNextCursor());
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
     }
 
+    // A viral post's readers share one in-flight query instead of each issuing their own
     public Optional<PostResponseDTO> getPostById(String id) {
-        return postRepository.findByIdAndDeleteStatusFalse(id)
-                .map(this::convertToDTO);
+        return Optional.ofNullable(postLoads.load(id, key -> postRepository.findByIdAndDeleteStatusFalse(key)
+                .map(post -> convertToDTOs(List.of(post), null).get(0))
+                .orElse(null)));
     }
 
     public PostResponseDTO createPost(PostDTO postDTO) {
         Post post = new Post();
         post.setCaption(postDTO.getCaption());
 
+        // The author, media and tag lookups are independent, so they run side by side
+        CompletableFuture<AppUser> userLookup = CompletableFuture.supplyAsync(() -> userCache.findById(postDTO.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found")), lookupExecutor);
+        CompletableFuture<List<MediaType>> mediaLookup = lookupMediaTypes(postDTO.getMediaTypeIds());
+        CompletableFuture<List<AppUser>> tagLookup = lookupTaggedUsers(postDTO.getTaggedUserIds());
 
-        // Set user
-        AppUser user = appUserRepository.findById(postDTO.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        post.setUser(user);
-
-        // Set media types
-        if (postDTO.getMediaTypeIds() != null) {
-            List<MediaType> mediaTypes = postDTO.getMediaTypeIds().stream()
-                    .map(id -> mediaTypeRepository.findById(id)
-                            .orElseThrow(() -> new RuntimeException("MediaType not found with id: " + id)))
-                    .collect(Collectors.toList());
-            post.setMediaTypes(mediaTypes);
-        }
-
-        // Set tagged users
-        if (postDTO.getTaggedUserIds() != null) {
-            List<AppUser> taggedUsers = postDTO.getTaggedUserIds().stream()
-                    .map(id -> appUserRepository.findById(id)
-                            .orElseThrow(() -> new RuntimeException("User not found with id: " + id)))
-                    .collect(Collectors.toList());
-            post.setTaggedUsers(taggedUsers);
-        }
+        post.setUser(await(userLookup));
+        post.setMediaTypes(await(mediaLookup));
+        post.setTaggedUsers(await(tagLookup));
 
+        postSummaryService.applySummaries(post);
         Post savedPost = postRepository.save(post);
+        timelineService.fanOut(savedPost);
+        contentSearchService.indexPost(savedPost);
         return convertToDTO(savedPost);
     }
 
     public Optional<PostResponseDTO> updatePost(String id, PostDTO postDTO) {
+        // Started before the post is read; their results are ignored if it turns out to be missing
+        CompletableFuture<List<MediaType>> mediaLookup = lookupMediaTypes(postDTO.getMediaTypeIds());
+        CompletableFuture<List<AppUser>> tagLookup = lookupTaggedUsers(postDTO.getTaggedUserIds());
+
         return postRepository.findById(id)
                 .map(existingPost -> {
                     if (existingPost.isDeleteStatus()) {
@@ -80,45 +159,116 @@ public class PostService {
 
                     existingPost.setCaption(postDTO.getCaption());
                     existingPost.setUpdatedAt(new Date());
+                    Update update = new Update()
+                            .set("caption", existingPost.getCaption())
+                            .set("updatedAt", existingPost.getUpdatedAt());
 
                     // Update media types if provided
                     if (postDTO.getMediaTypeIds() != null) {
-                        List<MediaType> mediaTypes = postDTO.getMediaTypeIds().stream()
-                                .map(mediaId -> mediaTypeRepository.findById(mediaId)
-                                        .orElseThrow(() -> new RuntimeException("MediaType not found")))
-                                .collect(Collectors.toList());
+                        List<MediaType> mediaTypes = await(mediaLookup);
                         existingPost.setMediaTypes(mediaTypes);
+                        update.set("mediaTypes", toDBRefs(mediaTypes));
                     }
 
                     // Update tagged users if provided
                     if (postDTO.getTaggedUserIds() != null) {
-                        List<AppUser> taggedUsers = postDTO.getTaggedUserIds().stream()
-                                .map(userId -> appUserRepository.findById(userId)
-                                        .orElseThrow(() -> new RuntimeException("User not found")))
-                                .collect(Collectors.toList());
+                        List<AppUser> taggedUsers = await(tagLookup);
                         existingPost.setTaggedUsers(taggedUsers);
+                        update.set("taggedUsers", toDBRefs(taggedUsers));
                     }
 
-                    Post updatedPost = postRepository.save(existingPost);
+                    postSummaryService.applySummaries(existingPost);
+                    update.set("author", existingPost.getAuthor())
+                            .set("media", existingPost.getMedia())
+                            .set("tagged", existingPost.getTagged());
+                    // Targeted $set rather than save() so concurrent like/comment $inc are not overwritten
+                    Post updatedPost = mongoTemplate.findAndModify(Query.query(Criteria.where("id").is(id)), update,
+                            FindAndModifyOptions.options().returnNew(true), Post.class);
+                    if (updatedPost == null) {
+                        return null;
+                    }
+                    contentSearchService.indexPost(updatedPost);
                     return convertToDTO(updatedPost);
                 });
     }
 
     public boolean deletePost(String id) {
-        return postRepository.findById(id)
-                .map(post -> {
-                    post.setDeleteStatus(true);
-                    post.setUpdatedAt(new Date());
-                    postRepository.save(post);
-                    return true;
-                })
-                .orElse(false);
+        boolean found = mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id)),
+                new Update().set("deleteStatus", true).set("updatedAt", new Date()),
+                Post.class).getMatchedCount() > 0;
+        if (found) {
+            timelineService.removePost(id);
+            contentSearchService.remove(ContentSearchService.TYPE_POST, id);
+        }
+        return found;
     }
 
     public List<PostResponseDTO> getPostsByUser(String userId) {
-        return postRepository.findByUserIdAndDeleteStatusFalse(userId).stream()
+        return convertToDTOs(postRepository.findByUserIdAndDeleteStatusFalse(userId), null);
+    }
+
+    // One findAllById for the whole list; the result keeps the request's order
+    private CompletableFuture<List<MediaType>> lookupMediaTypes(List<String> ids) {
+        if (ids == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, MediaType> found = new HashMap<>();
+            mediaTypeRepository.findAllById(ids).forEach(mediaType -> found.put(mediaType.getId(), mediaType));
+            return inRequestOrder(ids, found, "MediaType");
+        }, lookupExecutor);
+    }
+
+    private CompletableFuture<List<AppUser>> lookupTaggedUsers(List<String> ids) {
+        if (ids == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> inRequestOrder(ids, userCache.findAllById(ids), "User"), lookupExecutor);
+    }
+
+    private static <T> List<T> inRequestOrder(List<String> ids, Map<String, T> found, String type) {
+        return ids.stream()
+                .map(id -> {
+                    T entity = found.get(id);
+                    if (entity == null) {
+                        throw new RuntimeException(type + " not found with id: " + id);
+                    }
+                    return entity;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // The update mapper would embed these entities whole, so hand it the references directly
+    private List<DBRef> toDBRefs(List<?> entities) {
+        return entities.stream()
+                .map(entity -> mongoTemplate.getConverter().toDBRef(entity, null))
+                .collect(Collectors.toList());
+    }
+
+    // Posts written before summaries were embedded are repaired in one batch first,
+    // and the viewer's likes for the whole page come from a single query
+    private List<PostResponseDTO> convertToDTOs(List<Post> posts, String viewerId) {
+        postSummaryService.fillMissing(posts);
+        List<PostResponseDTO> dtos = posts.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        if (viewerId != null && !dtos.isEmpty()) {
+            Set<String> liked = likeService.getLikedPostIds(viewerId,
+                    dtos.stream().map(PostResponseDTO::getId).collect(Collectors.toList()));
+            dtos.forEach(dto -> dto.setLikedByViewer(liked.contains(dto.getId())));
+        }
+        return dtos;
     }
 
     private PostResponseDTO convertToDTO(Post post) {
@@ -127,9 +277,11 @@ public class PostService {
         dto.setCaption(post.getCaption());
         dto.setCreatedAt(post.getCreatedAt());
         dto.setUpdatedAt(post.getUpdatedAt());
-        dto.setUser(post.getUser());
-        dto.setMediaTypes(post.getMediaTypes());
-        dto.setTaggedUsers(post.getTaggedUsers());
+        dto.setUser(post.getAuthor());
+        dto.setMediaTypes(post.getMedia());
+        dto.setTaggedUsers(post.getTagged());
+        dto.setLikeCount(post.getLikeCount());
+        dto.setCommentCount(post.getCommentCount());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.models.*;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the author/media/tagged summaries embedded on posts so reads never
+ * follow Post's DBRefs one document at a time.
+ */
+@Service
+public class PostSummaryService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public PostSummaryService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void applySummaries(Post post) {
+        post.setAuthor(UserSummary.from(post.getUser()));
+        if (post.getMediaTypes() != null) {
+            post.setMedia(post.getMediaTypes().stream()
+                    .map(MediaSummary::from)
+                    .collect(Collectors.toList()));
+        }
+        if (post.getTaggedUsers() != null) {
+            post.setTagged(post.getTaggedUsers().stream()
+                    .map(UserSummary::from)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Fills summaries on posts written before they were embedded. References for
+     * the whole batch are resolved with one $in query per collection and the
+     * result is written back so each post is only repaired once.
+     */
+    public void fillMissing(List<Post> posts) {
+        Map<String, Post> pending = posts.stream()
+                .filter(post -> post.getAuthor() == null)
+                .collect(Collectors.toMap(Post::getId, post -> post, (a, b) -> a));
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Query rawQuery = Query.query(Criteria.where("_id").in(toObjectIds(pending.keySet())));
+        rawQuery.fields().include("user").include("mediaTypes").include("taggedUsers");
+        List<Document> rawPosts = mongoTemplate.find(rawQuery, Document.class, "posts");
+
+        Set<Object> userIds = new HashSet<>();
+        Set<Object> mediaIds = new HashSet<>();
+        for (Document raw : rawPosts) {
+            DBRef user = raw.get("user", DBRef.class);
+            if (user != null) {
+                userIds.add(user.getId());
+            }
+            refIds(raw, "taggedUsers").forEach(userIds::add);
+            refIds(raw, "mediaTypes").forEach(mediaIds::add);
+        }
+
+        Map<String, UserSummary> users = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            Query userQuery = Query.query(Criteria.where("_id").in(userIds));
+            userQuery.fields().include("username").include("firstName").include("lastName").include("profileImageUrl");
+            for (Document doc : mongoTemplate.find(userQuery, Document.class, "app_users")) {
+                UserSummary summary = new UserSummary();
+                summary.setId(doc.getObjectId("_id").toHexString());
+                summary.setUsername(doc.getString("username"));
+                summary.setFirstName(doc.getString("firstName"));
+                summary.setLastName(doc.getString("lastName"));
+                summary.setProfileImageUrl(doc.getString("profileImageUrl"));
+                users.put(summary.getId(), summary);
+            }
+        }
+
+        Map<String, MediaSummary> media = new HashMap<>();
+        if (!mediaIds.isEmpty()) {
+            Query mediaQuery = Query.query(Criteria.where("_id").in(mediaIds));
+            mediaQuery.fields().include("type").include("url");
+            for (Document doc : mongoTemplate.find(mediaQuery, Document.class, "media_types")) {
+                MediaSummary summary = new MediaSummary();
+                summary.setId(doc.getObjectId("_id").toHexString());
+                summary.setType(doc.getString("type"));
+                summary.setUrl(doc.getString("url"));
+                media.put(summary.getId(), summary);
+            }
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+        for (Document raw : rawPosts) {
+            Post post = pending.get(raw.getObjectId("_id").toHexString());
+            DBRef userRef = raw.get("user", DBRef.class);
+
+            UserSummary author;
+            if (userRef == null) {
+                author = new UserSummary();
+            } else {
+                author = users.get(userRef.getId().toString());
+                if (author == null) {
+                    // Author document is gone; keep the id so the post is not revisited
+                    author = new UserSummary();
+                    author.setId(userRef.getId().toString());
+                }
+            }
+            List<MediaSummary> postMedia = refIds(raw, "mediaTypes").stream()
+                    .map(id -> media.get(id.toString()))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            List<UserSummary> tagged = refIds(raw, "taggedUsers").stream()
+                    .map(id -> users.get(id.toString()))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            post.setAuthor(author);
+            post.setMedia(postMedia);
+            post.setTagged(tagged);
+            bulk.updateOne(Query.query(Criteria.where("id").is(post.getId())),
+                    new Update().set("author", author).set("media", postMedia).set("tagged", tagged));
+        }
+        if (!rawPosts.isEmpty()) {
+            bulk.execute();
+        }
+    }
+
+    /**
+     * Repairs every post that predates embedded summaries, walking _id order in batches.
+     */
+    public long backfillAll(int batchSize) {
+        long repaired = 0;
+        String lastId = null;
+        while (true) {
+            Criteria criteria = Criteria.where("author").exists(false);
+            if (lastId != null) {
+                criteria = criteria.and("id").gt(lastId);
+            }
+            Query query = new Query(criteria)
+                    .with(Sort.by("id"))
+                    .limit(batchSize);
+            List<Post> batch = mongoTemplate.find(query, Post.class);
+            if (batch.isEmpty()) {
+                return repaired;
+            }
+            fillMissing(batch);
+            repaired += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    public void refreshAuthor(AppUser user) {
+        UserSummary summary = UserSummary.from(user);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("author.id").is(user.getId())),
+                Update.update("author", summary), Post.class);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("tagged.id").is(user.getId())),
+                new Update().set("tagged.$[t]", summary).filterArray(Criteria.where("t._id").is(storedId(user.getId()))),
+                Post.class);
+    }
+
+    public void refreshMedia(MediaType mediaType) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("media.id").is(mediaType.getId())),
+                new Update().set("media.$[m]", MediaSummary.from(mediaType))
+                        .filterArray(Criteria.where("m._id").is(storedId(mediaType.getId()))),
+                Post.class);
+    }
+
+    // Array filters bypass entity mapping, so match the embedded id the way the converter stores it
+    private static Object storedId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private static List<Object> refIds(Document raw, String field) {
+        List<DBRef> refs = raw.getList(field, DBRef.class);
+        if (refs == null) {
+            return List.of();
+        }
+        return refs.stream().filter(Objects::nonNull).map(DBRef::getId).collect(Collectors.toList());
+    }
+
+    private static List<ObjectId> toObjectIds(Collection<String> ids) {
+        return ids.stream().filter(ObjectId::isValid).map(ObjectId::new).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,513 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.ProgressStatsDTO;
+import com.example.paf_backend_2025.dtos.SkillStatsDTO;
+import com.example.paf_backend_2025.models.LearningProgressUpdate;
+import com.example.paf_backend_2025.models.MigrationRecord;
+import com.example.paf_backend_2025.models.ProgressStats;
+import com.example.paf_backend_2025.models.SkillStats;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Learning-progress analytics per user and per skill (templateType).
+ * <p>
+ * Totals live in progress_stats (one document per user) and
+ * progress_skill_stats (one per skill across all users), and are adjusted
+ * with $inc as updates are created, edited and deleted, so reads are a single
+ * document lookup. Streaks and active days advance on create with conditional
+ * updates on lastActiveDay. Deleting the last update of a day is the one case
+ * that cannot be applied as a delta; that user's days are recomputed instead.
+ * <p>
+ * Updates recorded before the analytics existed are added once by seed().
+ * Its migration record holds a boundary id: changes to updates above it are
+ * always applied live, changes to older ones only after the document they
+ * touch has been seeded. Until then they just bump the document's rev, so a
+ * seed that read it earlier retries and picks them up. Once the record is
+ * complete every change applies directly. An edit to an older update saved
+ * before its seed reads and applied after it finishes can still be counted
+ * twice, and one that first reaches a skill just as the seed completes can
+ * be left out.
+ */
+@Service
+public class ProgressAnalyticsService {
+
+    public static final String MIGRATION = "progress-stats";
+
+    private static final String UPDATES = "learning_progress_updates";
+    private static final int SEED_ATTEMPTS = 5;
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressAnalyticsService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneId zone;
+
+    private volatile ObjectId boundary;
+    private volatile boolean seedComplete;
+
+    public ProgressAnalyticsService(MongoTemplate mongoTemplate,
+                                    @Value("${app.progress-stats.zone:UTC}") String zone) {
+        this.mongoTemplate = mongoTemplate;
+        this.zone = ZoneId.of(zone);
+    }
+
+    // The upserts create the user's document on their first update, however many race to do it
+    public void onCreated(LearningProgressUpdate progress) {
+        String userId = ownerId(progress);
+        if (userId == null) {
+            return;
+        }
+        applyDelta(userId, progress.getId(), progress.getTemplateType(), 1,
+                progress.getEstimatedTime(), progress.getCompletedProgress());
+        recordActiveDay(userId, day(progress.getCreatedAt()));
+    }
+
+    public void onUpdated(LearningProgressUpdate progress, String oldTemplateType,
+                          double oldEstimatedTime, double oldCompletedProgress) {
+        String userId = ownerId(progress);
+        if (userId == null) {
+            return;
+        }
+        String templateType = progress.getTemplateType();
+        if (ProgressStats.SkillTotals.key(oldTemplateType).equals(ProgressStats.SkillTotals.key(templateType))) {
+            applyDelta(userId, progress.getId(), templateType, 0,
+                    progress.getEstimatedTime() - oldEstimatedTime,
+                    progress.getCompletedProgress() - oldCompletedProgress);
+        } else {
+            applyDelta(userId, progress.getId(), oldTemplateType, -1, -oldEstimatedTime, -oldCompletedProgress);
+            applyDelta(userId, progress.getId(), templateType, 1,
+                    progress.getEstimatedTime(), progress.getCompletedProgress());
+        }
+    }
+
+    public void onDeleted(LearningProgressUpdate progress) {
+        String userId = ownerId(progress);
+        if (userId == null) {
+            return;
+        }
+        applyDelta(userId, progress.getId(), progress.getTemplateType(), -1,
+                -progress.getEstimatedTime(), -progress.getCompletedProgress());
+        if (!hasUpdatesOn(userId, day(progress.getCreatedAt()))) {
+            rebuildDays(userId);
+        }
+    }
+
+    /**
+     * A user's analytics; users without any updates get zeroed stats.
+     */
+    public ProgressStatsDTO getUserStats(String userId) {
+        ProgressStats stats = mongoTemplate.findById(userId, ProgressStats.class);
+        if (stats == null) {
+            stats = new ProgressStats();
+            stats.setId(userId);
+        }
+        return toDTO(stats);
+    }
+
+    public List<SkillStatsDTO> getSkillStats() {
+        List<SkillStats> skills = mongoTemplate.find(
+                Query.query(Criteria.where("count").gt(0)).with(Sort.by(Sort.Direction.DESC, "count")), SkillStats.class);
+        long total = skills.stream().mapToLong(SkillStats::getCount).sum();
+        return skills.stream()
+                .map(skill -> toSkillDTO(skill.getTemplateType(), skill.getCount(), skill.getEstimatedTime(),
+                        skill.getCompletedProgress(), total))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recomputes one user's active days and streaks from their live updates,
+     * leaving the totals alone. Written only if the document is unchanged
+     * since it was read, so a day recorded meanwhile makes it start over.
+     */
+    public void rebuildDays(String userId) {
+        if (!ObjectId.isValid(userId)) {
+            return;
+        }
+        for (int attempt = 0; attempt < SEED_ATTEMPTS; attempt++) {
+            Document current = readState(ProgressStats.class, userId);
+            if (current == null) {
+                return;
+            }
+            Totals totals = scan(userId, null);
+            Update update = totals.days(new Update()).inc("rev", 1).set("updatedAt", new Date());
+            if (mongoTemplate.updateFirst(Query.query(unchanged(userId, current)), update, ProgressStats.class)
+                    .getMatchedCount() > 0) {
+                return;
+            }
+        }
+        log.warn("Gave up recomputing active days for user {}", userId);
+    }
+
+    /**
+     * Adds the updates from before the boundary to the skill and user
+     * documents, once: the migration record is marked complete at the end,
+     * and documents already seeded by an interrupted run are skipped on the
+     * next. Seeding adds with $inc, so live changes to later updates that
+     * land meanwhile are kept. Returns the number of users seeded.
+     */
+    public long seed() {
+        if (isSeeded()) {
+            return 0;
+        }
+        ObjectId before = boundary();
+        seedSkills(before);
+
+        List<ObjectId> userIds = mongoTemplate.findDistinct(
+                Query.query(Criteria.where("deleteStatus").is(false).and("_id").lt(before)),
+                "user.$id", UPDATES, ObjectId.class);
+        long seeded = 0;
+        for (ObjectId userId : userIds) {
+            if (seedUser(userId.toHexString(), before)) {
+                seeded++;
+            }
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(MIGRATION)),
+                new Update().set("completedAt", new Date()), MigrationRecord.class);
+        return seeded;
+    }
+
+    // Every skill document is seeded, including ones created while this runs, before the users are
+    private void seedSkills(ObjectId before) {
+        for (int attempt = 0; attempt < SEED_ATTEMPTS; attempt++) {
+            Map<String, Document> current = new HashMap<>();
+            Query state = new Query();
+            state.fields().include("rev", "seeded");
+            for (Document doc : mongoTemplate.query(SkillStats.class).as(Document.class).matching(state).all()) {
+                current.put(String.valueOf(doc.get("_id")), doc);
+            }
+
+            Aggregation bySkill = Aggregation.newAggregation(
+                    Aggregation.match(Criteria.where("deleteStatus").is(false).and("_id").lt(before)),
+                    Aggregation.group("templateType").count().as("count")
+                            .sum("estimatedTime").as("estimatedTime")
+                            .sum("completedProgress").as("completedProgress"));
+            Map<String, SkillStats> skills = new HashMap<>();
+            for (Document row : mongoTemplate.aggregate(bySkill, UPDATES, Document.class).getMappedResults()) {
+                String templateType = row.getString("_id");
+                SkillStats skill = skills.computeIfAbsent(ProgressStats.SkillTotals.key(templateType), key -> {
+                    SkillStats created = new SkillStats();
+                    created.setTemplateType(templateType);
+                    return created;
+                });
+                skill.setCount(skill.getCount() + number(row, "count").longValue());
+                skill.setEstimatedTime(skill.getEstimatedTime() + number(row, "estimatedTime"));
+                skill.setCompletedProgress(skill.getCompletedProgress() + number(row, "completedProgress"));
+            }
+
+            Set<String> keys = new HashSet<>(skills.keySet());
+            keys.addAll(current.keySet());
+            boolean complete = true;
+            for (String key : keys) {
+                Document doc = current.get(key);
+                if (doc != null && Boolean.TRUE.equals(doc.getBoolean("seeded"))) {
+                    continue;
+                }
+                Update update = new Update().set("seeded", true).inc("rev", 1).set("updatedAt", new Date());
+                SkillStats skill = skills.get(key);
+                if (skill != null) {
+                    update.set("templateType", skill.getTemplateType())
+                            .inc("count", skill.getCount())
+                            .inc("estimatedTime", skill.getEstimatedTime())
+                            .inc("completedProgress", skill.getCompletedProgress());
+                }
+                complete &= compareAndSeed(key, doc, update, SkillStats.class);
+            }
+            if (complete && !mongoTemplate.exists(Query.query(Criteria.where("seeded").ne(true)), SkillStats.class)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Skill stats kept changing while seeding");
+    }
+
+    private boolean seedUser(String userId, ObjectId before) {
+        for (int attempt = 0; attempt < SEED_ATTEMPTS; attempt++) {
+            Document current = readState(ProgressStats.class, userId);
+            if (current != null && Boolean.TRUE.equals(current.getBoolean("seeded"))) {
+                return false;
+            }
+            // Days are recomputed from every update; only the totals are split at the boundary
+            Totals totals = scan(userId, before);
+            Update update = totals.days(totals.totals(new Update()))
+                    .set("seeded", true).inc("rev", 1).set("updatedAt", new Date());
+            if (compareAndSeed(userId, current, update, ProgressStats.class)) {
+                return true;
+            }
+        }
+        throw new IllegalStateException("Progress stats for user " + userId + " kept changing while seeding");
+    }
+
+    // Creates the document if it was missing when read; fails if it was created or changed since
+    private boolean compareAndSeed(String id, Document current, Update update, Class<?> type) {
+        try {
+            mongoTemplate.upsert(Query.query(unchanged(id, current).and("seeded").ne(true)), update, type);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private static Criteria unchanged(String id, Document current) {
+        Object rev = current == null ? null : current.get("rev");
+        Criteria criteria = Criteria.where("id").is(id);
+        return rev == null ? criteria.and("rev").exists(false) : criteria.and("rev").is(rev);
+    }
+
+    // Raw, so a document that has never been given a rev can be told apart from rev 0
+    private Document readState(Class<?> type, String id) {
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("rev", "seeded");
+        return mongoTemplate.query(type).as(Document.class).matching(query).oneValue();
+    }
+
+    // All of the user's live updates count towards days; only those below before (if given) towards totals
+    private Totals scan(String userId, ObjectId before) {
+        Query query = Query.query(Criteria.where("user.$id").is(new ObjectId(userId)).and("deleteStatus").is(false));
+        query.fields().include("templateType", "estimatedTime", "completedProgress", "createdAt");
+        Totals totals = new Totals();
+        try (var docs = mongoTemplate.stream(query, Document.class, UPDATES)) {
+            docs.forEach(doc -> {
+                if (before != null && doc.getObjectId("_id").compareTo(before) < 0) {
+                    totals.add(doc.getString("templateType"), number(doc, "estimatedTime"),
+                            number(doc, "completedProgress"));
+                }
+                totals.addDay(LocalDate.parse(day(doc.getDate("createdAt"))));
+            });
+        }
+        return totals;
+    }
+
+    // The first call on a fresh deployment fixes the boundary; every node then reads the same one
+    private ObjectId boundary() {
+        ObjectId known = boundary;
+        if (known != null) {
+            return known;
+        }
+        Query query = Query.query(Criteria.where("id").is(MIGRATION));
+        MigrationRecord record;
+        try {
+            record = mongoTemplate.findAndModify(query, new Update().setOnInsert("boundary", new ObjectId()),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), MigrationRecord.class);
+        } catch (DuplicateKeyException e) {
+            record = mongoTemplate.findOne(query, MigrationRecord.class);
+        }
+        boundary = record.getBoundary();
+        return boundary;
+    }
+
+    private void applyDelta(String userId, String progressId, String templateType, long count,
+                            double estimatedTime, double completedProgress) {
+        boolean live = !ObjectId.isValid(progressId) || new ObjectId(progressId).compareTo(boundary()) > 0;
+        String key = ProgressStats.SkillTotals.key(templateType);
+        apply(SkillStats.class, key, live, new Update()
+                .set("templateType", templateType)
+                .inc("count", count)
+                .inc("estimatedTime", estimatedTime)
+                .inc("completedProgress", completedProgress)
+                .set("updatedAt", new Date()));
+
+        String skill = "skills." + key + ".";
+        apply(ProgressStats.class, userId, live, new Update()
+                .inc("entryCount", count)
+                .inc("estimatedTime", estimatedTime)
+                .inc("completedProgress", completedProgress)
+                .set(skill + "templateType", templateType)
+                .inc(skill + "count", count)
+                .inc(skill + "estimatedTime", estimatedTime)
+                .inc(skill + "completedProgress", completedProgress)
+                .set("updatedAt", new Date()));
+    }
+
+    /**
+     * Deltas are upserted, since a removal can reach a document before the
+     * addition it follows; the counts are commutative and settle once both
+     * land. A change to an update from before the boundary waits for the
+     * document to be seeded and otherwise only bumps its rev, until the seed
+     * has completed and every document can take deltas directly.
+     */
+    private void apply(Class<?> type, String id, boolean live, Update delta) {
+        Query byId = Query.query(Criteria.where("id").is(id));
+        for (int attempt = 0; ; attempt++) {
+            try {
+                if (live || isSeeded()) {
+                    mongoTemplate.upsert(byId, delta, type);
+                } else if (mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(id).and("seeded").is(true)),
+                        delta, type).getMatchedCount() == 0) {
+                    mongoTemplate.upsert(Query.query(Criteria.where("id").is(id).and("seeded").ne(true)),
+                            new Update().inc("rev", 1), type);
+                }
+                return;
+            } catch (DuplicateKeyException e) {
+                // Lost a race to create the document, or it was seeded in between; the retry matches it
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean isSeeded() {
+        if (!seedComplete) {
+            seedComplete = mongoTemplate.exists(
+                    Query.query(Criteria.where("id").is(MIGRATION).and("completedAt").ne(null)), MigrationRecord.class);
+        }
+        return seedComplete;
+    }
+
+    // Only one of the two conditional updates can match, and neither does once the day is recorded
+    private void recordActiveDay(String userId, String day) {
+        String yesterday = LocalDate.parse(day).minusDays(1).toString();
+        Query continuing = Query.query(Criteria.where("id").is(userId).and("lastActiveDay").is(yesterday));
+        ProgressStats continued = mongoTemplate.findAndModify(continuing,
+                new Update().set("lastActiveDay", day).inc("currentStreak", 1).inc("activeDays", 1).inc("rev", 1),
+                FindAndModifyOptions.options().returnNew(true), ProgressStats.class);
+        if (continued != null) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(userId)),
+                    new Update().max("longestStreak", continued.getCurrentStreak()), ProgressStats.class);
+            return;
+        }
+        Query restarting = Query.query(Criteria.where("id").is(userId).orOperator(
+                Criteria.where("lastActiveDay").exists(false),
+                Criteria.where("lastActiveDay").lt(yesterday)));
+        mongoTemplate.updateFirst(restarting, new Update()
+                .inc("rev", 1)
+                .set("lastActiveDay", day)
+                .set("currentStreak", 1)
+                .inc("activeDays", 1)
+                .max("longestStreak", 1)
+                .min("firstActiveDay", day), ProgressStats.class);
+    }
+
+    private boolean hasUpdatesOn(String userId, String day) {
+        LocalDate date = LocalDate.parse(day);
+        Date from = Date.from(date.atStartOfDay(zone).toInstant());
+        Date to = Date.from(date.plusDays(1).atStartOfDay(zone).toInstant());
+        return mongoTemplate.exists(Query.query(Criteria.where("user.$id").is(new ObjectId(userId))
+                .and("deleteStatus").is(false)
+                .and("createdAt").gte(from).lt(to)), UPDATES);
+    }
+
+    private ProgressStatsDTO toDTO(ProgressStats stats) {
+        ProgressStatsDTO dto = new ProgressStatsDTO();
+        dto.setUserId(stats.getId());
+        dto.setEntryCount(stats.getEntryCount());
+        dto.setTotalEstimatedHours(stats.getEstimatedTime());
+        dto.setTotalCompletedProgress(stats.getCompletedProgress());
+        dto.setActiveDays(stats.getActiveDays());
+        dto.setCompletionVelocity(stats.getActiveDays() == 0 ? 0 : stats.getCompletedProgress() / stats.getActiveDays());
+        dto.setFirstActiveDay(stats.getFirstActiveDay());
+        dto.setLastActiveDay(stats.getLastActiveDay());
+        dto.setLongestStreak(stats.getLongestStreak());
+
+        // The stored streak is as of lastActiveDay; it only still counts if that was today or yesterday
+        LocalDate today = LocalDate.now(zone);
+        boolean current = stats.getLastActiveDay() != null
+                && !LocalDate.parse(stats.getLastActiveDay()).isBefore(today.minusDays(1));
+        dto.setCurrentStreak(current ? stats.getCurrentStreak() : 0);
+
+        long total = stats.getEntryCount();
+        dto.setSkills(stats.getSkills().values().stream()
+                .filter(skill -> skill.getCount() > 0)
+                .sorted(Comparator.comparingLong(ProgressStats.SkillTotals::getCount).reversed())
+                .map(skill -> toSkillDTO(skill.getTemplateType(), skill.getCount(), skill.getEstimatedTime(),
+                        skill.getCompletedProgress(), total))
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    static SkillStatsDTO toSkillDTO(String templateType, long count, double estimatedTime,
+                                    double completedProgress, long total) {
+        SkillStatsDTO dto = new SkillStatsDTO();
+        dto.setTemplateType(templateType);
+        dto.setCount(count);
+        dto.setEstimatedHours(estimatedTime);
+        dto.setCompletedProgress(completedProgress);
+        dto.setAverageProgress(count == 0 ? 0 : completedProgress / count);
+        dto.setShare(total == 0 ? 0 : (double) count / total);
+        return dto;
+    }
+
+    private String day(Date date) {
+        return (date == null ? LocalDate.now(zone) : LocalDate.ofInstant(date.toInstant(), zone)).toString();
+    }
+
+    private static String ownerId(LearningProgressUpdate progress) {
+        return progress.getUser() == null ? null : progress.getUser().getId();
+    }
+
+    private static Double number(Document doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof Number number ? number.doubleValue() : 0.0;
+    }
+
+    // Accumulates one user's updates in any order for seeding and day recomputes
+    private static class Totals {
+        private long count;
+        private double estimatedTime;
+        private double completedProgress;
+        private final Map<String, ProgressStats.SkillTotals> skills = new HashMap<>();
+        private final TreeSet<LocalDate> days = new TreeSet<>();
+
+        void add(String templateType, double time, double progress) {
+            count++;
+            estimatedTime += time;
+            completedProgress += progress;
+            ProgressStats.SkillTotals skill = skills.computeIfAbsent(ProgressStats.SkillTotals.key(templateType), key -> {
+                ProgressStats.SkillTotals created = new ProgressStats.SkillTotals();
+                created.setTemplateType(templateType);
+                return created;
+            });
+            skill.setCount(skill.getCount() + 1);
+            skill.setEstimatedTime(skill.getEstimatedTime() + time);
+            skill.setCompletedProgress(skill.getCompletedProgress() + progress);
+        }
+
+        void addDay(LocalDate day) {
+            days.add(day);
+        }
+
+        Update totals(Update update) {
+            update.inc("entryCount", count)
+                    .inc("estimatedTime", estimatedTime)
+                    .inc("completedProgress", completedProgress);
+            skills.forEach((key, skill) -> update
+                    .set("skills." + key + ".templateType", skill.getTemplateType())
+                    .inc("skills." + key + ".count", skill.getCount())
+                    .inc("skills." + key + ".estimatedTime", skill.getEstimatedTime())
+                    .inc("skills." + key + ".completedProgress", skill.getCompletedProgress()));
+            return update;
+        }
+
+        Update days(Update update) {
+            int longest = 0;
+            int run = 0;
+            LocalDate previous = null;
+            for (LocalDate day : days) {
+                run = previous != null && previous.plusDays(1).equals(day) ? run + 1 : 1;
+                longest = Math.max(longest, run);
+                previous = day;
+            }
+            return update.set("activeDays", (long) days.size())
+                    .set("firstActiveDay", days.isEmpty() ? null : days.first().toString())
+                    .set("lastActiveDay", days.isEmpty() ? null : days.last().toString())
+                    .set("currentStreak", run)
+                    .set("longestStreak", longest);
+        }
+    }
+}
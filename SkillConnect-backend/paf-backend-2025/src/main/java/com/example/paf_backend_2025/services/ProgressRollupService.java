@@ -0,0 +1,368 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.ProgressBucketDTO;
+import com.example.paf_backend_2025.models.LearningProgressUpdate;
+import com.example.paf_backend_2025.models.MigrationRecord;
+import com.example.paf_backend_2025.models.ProgressBucket;
+import com.example.paf_backend_2025.models.ProgressStats;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Day, week and month buckets of learning progress, per user and for
+ * everyone, so dashboard charts read a handful of bucket documents instead of
+ * scanning learning_progress_updates.
+ * <p>
+ * Writes to progress updates adjust the six affected buckets (three
+ * granularities, user and global) with $inc in one bulk request. Buckets are
+ * keyed by the update's createdAt, so edits and deletes adjust the period the
+ * update was first recorded in. A catch-up job recomputes recent periods from
+ * the updates themselves to repair anything a failed write left behind; the
+ * same rebuild backfills history.
+ */
+@Service
+public class ProgressRollupService {
+
+    public static final String DAY = "day";
+    public static final String WEEK = "week";
+    public static final String MONTH = "month";
+    public static final String GLOBAL = "all";
+    public static final String MIGRATION = "progress-rollups";
+
+    private static final List<String> GRANULARITIES = List.of(DAY, WEEK, MONTH);
+    private static final String UPDATES = "learning_progress_updates";
+    private static final Logger log = LoggerFactory.getLogger(ProgressRollupService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneId zone;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Value("${app.progress-rollups.catch-up.enabled:true}")
+    private boolean catchUpEnabled;
+
+    @Value("${app.progress-rollups.catch-up.days:2}")
+    private int catchUpDays;
+
+    @Value("${app.progress-rollups.max-buckets:400}")
+    private int maxBuckets;
+
+    public ProgressRollupService(MongoTemplate mongoTemplate,
+                                 @Value("${app.progress-stats.zone:UTC}") String zone) {
+        this.mongoTemplate = mongoTemplate;
+        this.zone = ZoneId.of(zone);
+    }
+
+    public void onCreated(LearningProgressUpdate progress) {
+        apply(progress, progress.getTemplateType(), 1, progress.getEstimatedTime(), progress.getCompletedProgress());
+    }
+
+    public void onUpdated(LearningProgressUpdate progress, String oldTemplateType,
+                          double oldEstimatedTime, double oldCompletedProgress) {
+        String templateType = progress.getTemplateType();
+        if (ProgressStats.SkillTotals.key(oldTemplateType).equals(ProgressStats.SkillTotals.key(templateType))) {
+            apply(progress, templateType, 0,
+                    progress.getEstimatedTime() - oldEstimatedTime,
+                    progress.getCompletedProgress() - oldCompletedProgress);
+        } else {
+            apply(progress, oldTemplateType, -1, -oldEstimatedTime, -oldCompletedProgress);
+            apply(progress, templateType, 1, progress.getEstimatedTime(), progress.getCompletedProgress());
+        }
+    }
+
+    public void onDeleted(LearningProgressUpdate progress) {
+        apply(progress, progress.getTemplateType(), -1, -progress.getEstimatedTime(), -progress.getCompletedProgress());
+    }
+
+    /**
+     * Buckets whose periods overlap [from, to], oldest first. Periods without
+     * any updates are absent. userId null means everyone.
+     */
+    public List<ProgressBucketDTO> getBuckets(String userId, String granularity, LocalDate from, LocalDate to) {
+        checkGranularity(granularity);
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LocalDate first = periodStart(from, granularity);
+        if (periodsBetween(first, to, granularity) >= maxBuckets) {
+            throw new IllegalArgumentException("At most " + maxBuckets + " buckets per request");
+        }
+        Query query = Query.query(Criteria.where("scope").is(userId == null ? GLOBAL : userId)
+                        .and("granularity").is(granularity)
+                        .and("start").gte(toDate(first)).lte(toDate(to)))
+                .with(Sort.by("start"));
+        return mongoTemplate.find(query, ProgressBucket.class).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    @Async("maintenanceExecutor")
+    public void rebuildAsync(LocalDate from, LocalDate to) {
+        try {
+            rebuild(from, to);
+        } catch (RuntimeException e) {
+            log.error("Progress rollup rebuild failed", e);
+        }
+    }
+
+    // Recomputes the last few days, and the weeks and months containing them
+    @Async("maintenanceExecutor")
+    @Scheduled(cron = "${app.progress-rollups.catch-up.cron:0 15 4 * * *}")
+    public void catchUp() {
+        if (!catchUpEnabled) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now(zone);
+            rebuild(today.minusDays(catchUpDays), today);
+        } catch (RuntimeException e) {
+            log.error("Progress rollup catch-up failed", e);
+        }
+    }
+
+    /**
+     * Recomputes every bucket of every granularity whose period overlaps
+     * [from, to] from the live updates. Works through the range a few periods
+     * at a time so memory is bounded by one window. Returns the number of
+     * buckets written, or -1 if another rebuild was already running.
+     * <p>
+     * An update written while its window is being recomputed can be counted
+     * twice or missed; the next catch-up run over that window corrects it.
+     */
+    public long rebuild(LocalDate from, LocalDate to) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            long written = 0;
+            for (String granularity : GRANULARITIES) {
+                int windowPeriods = DAY.equals(granularity) ? 31 : WEEK.equals(granularity) ? 5 : 1;
+                LocalDate start = periodStart(from, granularity);
+                while (!start.isAfter(to)) {
+                    LocalDate end = advance(start, granularity, windowPeriods);
+                    written += rebuildWindow(granularity, start, end);
+                    start = end;
+                }
+            }
+            return written;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Day of the oldest live update, or null when there are none.
+     */
+    public LocalDate firstUpdateDay() {
+        Query query = Query.query(Criteria.where("deleteStatus").is(false)).with(Sort.by("createdAt")).limit(1);
+        query.fields().include("createdAt");
+        Document first = mongoTemplate.findOne(query, Document.class, UPDATES);
+        return first == null || first.getDate("createdAt") == null ? null : toDay(first.getDate("createdAt"));
+    }
+
+    public boolean isBackfilled() {
+        return mongoTemplate.exists(Query.query(Criteria.where("id").is(MIGRATION).and("completedAt").ne(null)),
+                MigrationRecord.class);
+    }
+
+    public void markBackfilled() {
+        mongoTemplate.upsert(Query.query(Criteria.where("id").is(MIGRATION)),
+                new Update().set("completedAt", new Date()), MigrationRecord.class);
+    }
+
+    private long rebuildWindow(String granularity, LocalDate start, LocalDate end) {
+        Query query = Query.query(Criteria.where("deleteStatus").is(false)
+                .and("createdAt").gte(toDate(start)).lt(toDate(end)));
+        query.fields().include("user", "templateType", "estimatedTime", "completedProgress", "createdAt");
+
+        Map<String, ProgressBucket> buckets = new HashMap<>();
+        try (var docs = mongoTemplate.stream(query, Document.class, UPDATES)) {
+            docs.forEach(doc -> {
+                LocalDate periodStart = periodStart(toDay(doc.getDate("createdAt")), granularity);
+                String templateType = doc.getString("templateType");
+                double estimatedTime = number(doc, "estimatedTime");
+                double completedProgress = number(doc, "completedProgress");
+                add(buckets, GLOBAL, granularity, periodStart, templateType, estimatedTime, completedProgress);
+                if (doc.get("user") instanceof DBRef user && user.getId() != null) {
+                    add(buckets, user.getId().toString(), granularity, periodStart,
+                            templateType, estimatedTime, completedProgress);
+                }
+            });
+        }
+
+        if (!buckets.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProgressBucket.class);
+            for (ProgressBucket bucket : buckets.values()) {
+                bulk.upsert(Query.query(Criteria.where("id").is(bucket.getId())), new Update()
+                        .set("scope", bucket.getScope())
+                        .set("granularity", granularity)
+                        .set("start", bucket.getStart())
+                        .set("count", bucket.getCount())
+                        .set("estimatedTime", bucket.getEstimatedTime())
+                        .set("completedProgress", bucket.getCompletedProgress())
+                        .set("skills", bucket.getSkills()));
+            }
+            bulk.execute();
+        }
+        // Buckets in the window that no longer have any updates
+        mongoTemplate.remove(Query.query(Criteria.where("granularity").is(granularity)
+                .and("start").gte(toDate(start)).lt(toDate(end))
+                .and("id").nin(buckets.keySet())), ProgressBucket.class);
+        return buckets.size();
+    }
+
+    private void add(Map<String, ProgressBucket> buckets, String scope, String granularity, LocalDate periodStart,
+                     String templateType, double estimatedTime, double completedProgress) {
+        ProgressBucket bucket = buckets.computeIfAbsent(bucketId(scope, granularity, periodStart), id -> {
+            ProgressBucket created = new ProgressBucket();
+            created.setId(id);
+            created.setScope(scope);
+            created.setGranularity(granularity);
+            created.setStart(toDate(periodStart));
+            return created;
+        });
+        bucket.setCount(bucket.getCount() + 1);
+        bucket.setEstimatedTime(bucket.getEstimatedTime() + estimatedTime);
+        bucket.setCompletedProgress(bucket.getCompletedProgress() + completedProgress);
+        ProgressStats.SkillTotals skill = bucket.getSkills().computeIfAbsent(ProgressStats.SkillTotals.key(templateType), key -> {
+            ProgressStats.SkillTotals created = new ProgressStats.SkillTotals();
+            created.setTemplateType(templateType);
+            return created;
+        });
+        skill.setCount(skill.getCount() + 1);
+        skill.setEstimatedTime(skill.getEstimatedTime() + estimatedTime);
+        skill.setCompletedProgress(skill.getCompletedProgress() + completedProgress);
+    }
+
+    // Removals use plain updates so a missing bucket is never created with negative totals
+    private void apply(LearningProgressUpdate progress, String templateType, long count,
+                       double estimatedTime, double completedProgress) {
+        LocalDate day = toDay(progress.getCreatedAt());
+        String skill = "skills." + ProgressStats.SkillTotals.key(templateType) + ".";
+        List<String> scopes = new ArrayList<>(List.of(GLOBAL));
+        if (progress.getUser() != null && progress.getUser().getId() != null) {
+            scopes.add(progress.getUser().getId());
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProgressBucket.class);
+        for (String granularity : GRANULARITIES) {
+            LocalDate periodStart = periodStart(day, granularity);
+            for (String scope : scopes) {
+                Query query = Query.query(Criteria.where("id").is(bucketId(scope, granularity, periodStart)));
+                Update update = new Update()
+                        .inc("count", count)
+                        .inc("estimatedTime", estimatedTime)
+                        .inc("completedProgress", completedProgress)
+                        .set(skill + "templateType", templateType)
+                        .inc(skill + "count", count)
+                        .inc(skill + "estimatedTime", estimatedTime)
+                        .inc(skill + "completedProgress", completedProgress);
+                if (count > 0) {
+                    bulk.upsert(query, update
+                            .setOnInsert("scope", scope)
+                            .setOnInsert("granularity", granularity)
+                            .setOnInsert("start", toDate(periodStart)));
+                } else {
+                    bulk.updateOne(query, update);
+                }
+            }
+        }
+        bulk.execute();
+    }
+
+    private ProgressBucketDTO toDTO(ProgressBucket bucket) {
+        ProgressBucketDTO dto = new ProgressBucketDTO();
+        dto.setGranularity(bucket.getGranularity());
+        dto.setStart(toDay(bucket.getStart()).toString());
+        dto.setCount(bucket.getCount());
+        dto.setEstimatedHours(bucket.getEstimatedTime());
+        dto.setCompletedProgress(bucket.getCompletedProgress());
+        dto.setSkills(bucket.getSkills().values().stream()
+                .filter(skill -> skill.getCount() > 0)
+                .sorted(Comparator.comparingLong(ProgressStats.SkillTotals::getCount).reversed())
+                .map(skill -> ProgressAnalyticsService.toSkillDTO(skill.getTemplateType(), skill.getCount(),
+                        skill.getEstimatedTime(), skill.getCompletedProgress(), bucket.getCount()))
+                .collect(Collectors.toList()));
+        return dto;
+    }
+
+    private static void checkGranularity(String granularity) {
+        if (!GRANULARITIES.contains(granularity)) {
+            throw new IllegalArgumentException("granularity must be one of " + GRANULARITIES);
+        }
+    }
+
+    private static String bucketId(String scope, String granularity, LocalDate periodStart) {
+        return scope + ":" + granularity + ":" + periodStart;
+    }
+
+    private static LocalDate periodStart(LocalDate day, String granularity) {
+        switch (granularity) {
+            case WEEK:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return day.withDayOfMonth(1);
+            default:
+                return day;
+        }
+    }
+
+    private static LocalDate advance(LocalDate start, String granularity, int periods) {
+        switch (granularity) {
+            case WEEK:
+                return start.plusWeeks(periods);
+            case MONTH:
+                return start.plusMonths(periods);
+            default:
+                return start.plusDays(periods);
+        }
+    }
+
+    private static long periodsBetween(LocalDate first, LocalDate to, String granularity) {
+        switch (granularity) {
+            case WEEK:
+                return ChronoUnit.WEEKS.between(first, to);
+            case MONTH:
+                return ChronoUnit.MONTHS.between(first, to);
+            default:
+                return ChronoUnit.DAYS.between(first, to);
+        }
+    }
+
+    private Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(zone).toInstant());
+    }
+
+    private LocalDate toDay(Date date) {
+        return date == null ? LocalDate.now(zone) : LocalDate.ofInstant(date.toInstant(), zone);
+    }
+
+    private static double number(Document doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof Number number ? number.doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.RecommendationDTO;
+import com.example.paf_backend_2025.models.UserSummary;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * "People you may know": friends-of-friends from the in-memory follow graph,
+ * boosted by shared learning-progress template types. While the graph is
+ * disabled or loading, users are recommended on shared skills alone.
+ * <p>
+ * Results are precomputed per user and cached; the request path only reads
+ * the cached top-K list. Follows and new progress updates mark the affected
+ * users dirty, and a scheduled sweep recomputes them on a work-stealing pool.
+ * A user with no cached list is queued and gets an empty list until the next
+ * sweep.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    private final FollowGraph followGraph;
+    private final MongoTemplate mongoTemplate;
+    private final ForkJoinPool recommendationPool;
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> skillsByUser = new ConcurrentHashMap<>();
+    // Most recently active learners per template type, oldest first
+    private final Map<String, Deque<String>> recentLearners = new ConcurrentHashMap<>();
+    private final Map<String, List<RecommendationDTO>> cache;
+
+    @Value("${app.recommendations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.recommendations.top-k:20}")
+    private int topK;
+
+    @Value("${app.recommendations.recent-learners-per-skill:500}")
+    private int recentLearnersPerSkill;
+
+    @Value("${app.recommendations.mutual-weight:2.0}")
+    private double mutualWeight;
+
+    @Value("${app.recommendations.skill-weight:1.0}")
+    private double skillWeight;
+
+    @Value("${app.recommendations.max-dirty-fan-out:1000}")
+    private int maxDirtyFanOut;
+
+    public RecommendationService(FollowGraph followGraph,
+                                 MongoTemplate mongoTemplate,
+                                 @Qualifier("recommendationPool") ForkJoinPool recommendationPool,
+                                 @Value("${app.recommendations.cache-size:50000}") int cacheSize) {
+        this.followGraph = followGraph;
+        this.mongoTemplate = mongoTemplate;
+        this.recommendationPool = recommendationPool;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<RecommendationDTO>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSkills() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Query query = Query.query(Criteria.where("deleteStatus").ne(true).and("templateType").ne(null));
+            query.fields().include("user").include("templateType").exclude("_id");
+            try (var updates = mongoTemplate.stream(query, Document.class, "learning_progress_updates")) {
+                updates.forEach(update -> {
+                    DBRef user = update.get("user", DBRef.class);
+                    if (user != null && user.getId() != null) {
+                        addSkill(user.getId().toString(), update.getString("templateType"));
+                    }
+                });
+            }
+            log.info("Loaded learning skills for {} users", skillsByUser.size());
+        } catch (RuntimeException e) {
+            log.error("Loading learning skills failed", e);
+        }
+    }
+
+    public List<RecommendationDTO> getRecommendations(String userId, Integer limit) {
+        List<RecommendationDTO> cached = cache.get(userId);
+        if (cached == null) {
+            dirty.add(userId);
+            return List.of();
+        }
+        int size = limit == null || limit <= 0 ? cached.size() : Math.min(limit, cached.size());
+        return cached.subList(0, size);
+    }
+
+    /**
+     * A follow by followerId changes their own candidates and the
+     * friends-of-friends of everyone who follows them.
+     */
+    public void onFollowChanged(String followerId) {
+        if (!enabled) {
+            return;
+        }
+        markDirty(followerId);
+        if (followGraph.isReady()) {
+            followGraph.followerIds(followerId).stream()
+                    .limit(maxDirtyFanOut)
+                    .forEach(this::markDirty);
+        }
+    }
+
+    public void onSkillRecorded(String userId, String templateType) {
+        if (!enabled || userId == null || templateType == null) {
+            return;
+        }
+        addSkill(userId, templateType);
+        markDirty(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.recommendations.refresh-ms:30000}")
+    public void refreshDirty() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(dirty);
+        dirty.removeAll(batch);
+        for (String userId : batch) {
+            recommendationPool.execute(() -> {
+                try {
+                    cache.put(userId, compute(userId));
+                } catch (RuntimeException e) {
+                    log.warn("Recommendation recompute failed for {}", userId, e);
+                }
+            });
+        }
+    }
+
+    private void markDirty(String userId) {
+        // Users nobody has asked about are computed on first request instead
+        if (cache.containsKey(userId)) {
+            dirty.add(userId);
+        }
+    }
+
+    private List<RecommendationDTO> compute(String userId) {
+        Map<String, int[]> candidates = new HashMap<>();
+
+        // Ids rather than graph ordinals, which are renumbered by every reload
+        Set<String> followed;
+        if (followGraph.isReady()) {
+            followed = new HashSet<>(followGraph.followingIds(userId));
+            Map<String, Integer> mutual = new HashMap<>();
+            for (String friend : followed) {
+                for (String candidate : followGraph.followingIds(friend)) {
+                    if (!candidate.equals(userId) && !followed.contains(candidate)) {
+                        mutual.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+            mutual.forEach((id, count) -> candidates.put(id, new int[]{count, 0}));
+        } else {
+            // Graph disabled or still loading: shared skills only
+            followed = loadFollowingIds(userId);
+        }
+
+        Set<String> mySkills = skillsByUser.getOrDefault(userId, Set.of());
+        for (String skill : mySkills) {
+            Deque<String> learners = recentLearners.get(skill);
+            if (learners == null) {
+                continue;
+            }
+            List<String> snapshot;
+            synchronized (learners) {
+                snapshot = new ArrayList<>(learners);
+            }
+            for (String learner : snapshot) {
+                if (!learner.equals(userId) && !followed.contains(learner)) {
+                    candidates.computeIfAbsent(learner, id -> new int[2]);
+                }
+            }
+        }
+        for (Map.Entry<String, int[]> candidate : candidates.entrySet()) {
+            Set<String> skills = skillsByUser.getOrDefault(candidate.getKey(), Set.of());
+            int shared = 0;
+            for (String skill : mySkills) {
+                if (skills.contains(skill)) {
+                    shared++;
+                }
+            }
+            candidate.getValue()[1] = shared;
+        }
+
+        // Rank, then over-fetch so deleted accounts can be dropped without a second query
+        List<Map.Entry<String, int[]>> ranked = candidates.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, int[]> e) -> -score(e.getValue()))
+                        .thenComparing(Map.Entry::getKey))
+                .limit(topK * 2L)
+                .collect(Collectors.toList());
+        Map<String, UserSummary> summaries = loadSummaries(ranked.stream().map(Map.Entry::getKey).collect(Collectors.toList()));
+
+        List<RecommendationDTO> result = new ArrayList<>(topK);
+        for (Map.Entry<String, int[]> entry : ranked) {
+            UserSummary summary = summaries.get(entry.getKey());
+            if (summary != null) {
+                int[] features = entry.getValue();
+                result.add(new RecommendationDTO(summary, score(features), features[0], features[1]));
+                if (result.size() == topK) {
+                    break;
+                }
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private Set<String> loadFollowingIds(String userId) {
+        Query query = Query.query(Criteria.where("followerId").is(userId));
+        query.fields().include("followingId").exclude("_id");
+        return mongoTemplate.find(query, Document.class, "follows").stream()
+                .map(doc -> doc.getString("followingId"))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private double score(int[] features) {
+        return features[0] * mutualWeight + features[1] * skillWeight;
+    }
+
+    private Map<String, UserSummary> loadSummaries(List<String> userIds) {
+        List<ObjectId> ids = userIds.stream().filter(ObjectId::isValid).map(ObjectId::new).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids).and("deleteStatus").ne(true));
+        query.fields().include("username").include("firstName").include("lastName").include("profileImageUrl");
+        Map<String, UserSummary> summaries = new HashMap<>();
+        for (Document doc : mongoTemplate.find(query, Document.class, "app_users")) {
+            UserSummary summary = new UserSummary();
+            summary.setId(doc.getObjectId("_id").toHexString());
+            summary.setUsername(doc.getString("username"));
+            summary.setFirstName(doc.getString("firstName"));
+            summary.setLastName(doc.getString("lastName"));
+            summary.setProfileImageUrl(doc.getString("profileImageUrl"));
+            summaries.put(summary.getId(), summary);
+        }
+        return summaries;
+    }
+
+    private void addSkill(String userId, String templateType) {
+        skillsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(templateType);
+        Deque<String> learners = recentLearners.computeIfAbsent(templateType, type -> new ArrayDeque<>());
+        synchronized (learners) {
+            learners.remove(userId);
+            learners.addLast(userId);
+            if (learners.size() > recentLearnersPerSkill) {
+                learners.removeFirst();
+            }
+        }
+    }
+}
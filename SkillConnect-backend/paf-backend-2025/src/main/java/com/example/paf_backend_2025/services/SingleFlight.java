@@ -0,0 +1,67 @@
+package com.example.paf_backend_2025.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent loads of the same key into one: the first caller runs
+ * the loader, later callers wait on its future and get the same result or
+ * exception. Nothing is kept once the load finishes, except that a null
+ * result is remembered for a short negative TTL so repeated lookups of a
+ * missing id do not each reach the database. Ids are generated on insert and
+ * deletes are soft, so a missing key does not come back into existence; the
+ * TTL bounds anything else, such as a document restored by hand.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<K, Boolean> missing;
+
+    public SingleFlight(long negativeTtlMillis, long negativeMaxSize) {
+        this.missing = negativeTtlMillis <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(Duration.ofMillis(negativeTtlMillis))
+                .build();
+    }
+
+    public V load(K key, Function<K, V> loader) {
+        if (missing != null && missing.getIfPresent(key) != null) {
+            return null;
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.apply(key);
+            if (value == null && missing != null) {
+                missing.put(key, Boolean.TRUE);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
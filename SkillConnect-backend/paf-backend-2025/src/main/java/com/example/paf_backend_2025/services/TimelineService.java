@@ -0,0 +1,206 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.Post;
+import com.example.paf_backend_2025.models.TimelineEntry;
+import com.example.paf_backend_2025.repositories.KeysetCursor;
+import com.example.paf_backend_2025.repositories.TimelineEntryRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Home timelines built from the follow graph.
+ * <p>
+ * Posts are pushed into each follower's timeline_entries when written. Authors
+ * with more than app.timeline.celebrity-threshold followers are flagged
+ * fanOutOnRead instead, and their posts are merged into the timeline at read
+ * time. The flag is sticky: an author who drops back under the threshold
+ * keeps being merged at read time, since their earlier posts have no entries.
+ */
+@Service
+public class TimelineService {
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final MongoTemplate mongoTemplate;
+    private final FollowGraph followGraph;
+
+    @Value("${app.timeline.celebrity-threshold:5000}")
+    private int celebrityThreshold;
+
+    @Value("${app.timeline.fan-out-batch-size:1000}")
+    private int fanOutBatchSize;
+
+    @Autowired
+    public TimelineService(TimelineEntryRepository timelineEntryRepository,
+                           MongoTemplate mongoTemplate,
+                           FollowGraph followGraph) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.followGraph = followGraph;
+    }
+
+    @Async("timelineExecutor")
+    public void fanOut(Post post) {
+        String authorId = post.getAuthor().getId();
+        List<String> owners = new ArrayList<>();
+        owners.add(authorId);
+        // Follower ids are only loaded for authors under the threshold
+        List<String> followerIds = isCelebrity(authorId) ? null : findFollowerIds(authorId);
+        if (followerIds == null || followerIds.size() > celebrityThreshold) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(authorId)),
+                    Update.update("fanOutOnRead", true), AppUser.class);
+        } else {
+            owners.addAll(followerIds);
+        }
+
+        for (int from = 0; from < owners.size(); from += fanOutBatchSize) {
+            List<String> batch = owners.subList(from, Math.min(from + fanOutBatchSize, owners.size()));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimelineEntry.class);
+            for (String ownerId : batch) {
+                bulk.insert(new TimelineEntry(ownerId, post.getId(), authorId, post.getCreatedAt()));
+            }
+            try {
+                bulk.execute();
+            } catch (BulkOperationException | DuplicateKeyException e) {
+                // Entries already present from a retried fan-out; the rest of the batch was still written
+            }
+        }
+    }
+
+    @Async("timelineExecutor")
+    public void removePost(String postId) {
+        timelineEntryRepository.deleteByPostId(postId);
+    }
+
+    /**
+     * Returns one newest-first page of posts for the user's home timeline.
+     * Precomputed entries and posts from followed fan-out-on-read authors are
+     * merged on the same (createdAt, postId) cursor.
+     */
+    public CursorPageDTO<Post> getTimeline(String userId, String cursor, int pageSize) {
+        KeysetCursor position = KeysetCursor.parse(cursor);
+
+        Criteria entryCriteria = Criteria.where("ownerId").is(userId);
+        if (position != null) {
+            entryCriteria = entryCriteria.andOperator(position.before("createdAt", "postId"));
+        }
+        List<TimelineEntry> entries = mongoTemplate.find(new Query(entryCriteria)
+                .with(KeysetCursor.newestFirst("createdAt", "postId"))
+                .limit(pageSize + 1), TimelineEntry.class);
+
+        Map<String, Post> loaded = new HashMap<>();
+        Map<String, Date> candidates = new HashMap<>();
+        for (TimelineEntry entry : entries) {
+            candidates.put(entry.getPostId(), entry.getCreatedAt());
+        }
+
+        List<ObjectId> celebrityIds = findFollowedCelebrityIds(userId);
+        if (!celebrityIds.isEmpty()) {
+            Criteria postCriteria = Criteria.where("user.$id").in(celebrityIds).and("deleteStatus").is(false);
+            if (position != null) {
+                postCriteria = postCriteria.andOperator(position.before("createdAt"));
+            }
+            List<Post> celebrityPosts = mongoTemplate.find(new Query(postCriteria)
+                    .with(KeysetCursor.newestFirst("createdAt"))
+                    .limit(pageSize + 1), Post.class);
+            for (Post post : celebrityPosts) {
+                loaded.put(post.getId(), post);
+                candidates.put(post.getId(), post.getCreatedAt());
+            }
+        }
+
+        List<String> ordered = candidates.entrySet().stream()
+                .sorted(Map.Entry.<String, Date>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey())
+                        .reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (ordered.size() > pageSize) {
+            ordered = ordered.subList(0, pageSize);
+            String lastId = ordered.get(pageSize - 1);
+            nextCursor = KeysetCursor.encode(candidates.get(lastId), lastId);
+        }
+
+        List<String> missing = ordered.stream()
+                .filter(id -> !loaded.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            mongoTemplate.find(Query.query(Criteria.where("id").in(missing)), Post.class)
+                    .forEach(post -> loaded.put(post.getId(), post));
+        }
+
+        List<Post> posts = ordered.stream()
+                .map(loaded::get)
+                .filter(post -> post != null && !post.isDeleteStatus())
+                .collect(Collectors.toList());
+        return new CursorPageDTO<>(posts, nextCursor);
+    }
+
+    // Flagged authors stay flagged, or their posts from before would drop out of follower timelines
+    private boolean isCelebrity(String authorId) {
+        Query query = Query.query(Criteria.where("id").is(authorId));
+        query.fields().include("fanOutOnRead", "followerCount");
+        AppUser author = mongoTemplate.findOne(query, AppUser.class);
+        if (author == null) {
+            return false;
+        }
+        long followers = followGraph.isReady() ? followGraph.followerCount(authorId) : author.getFollowerCount();
+        return author.isFanOutOnRead() || followers > celebrityThreshold;
+    }
+
+    // Answered from the in-memory graph once loaded; otherwise by the follows indexes
+    private List<String> findFollowerIds(String userId) {
+        if (followGraph.isReady()) {
+            return followGraph.followerIds(userId);
+        }
+        Query query = Query.query(Criteria.where("followingId").is(userId));
+        query.fields().include("followerId").exclude("_id");
+        return mongoTemplate.find(query, Document.class, "follows").stream()
+                .map(doc -> doc.getString("followerId"))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<ObjectId> findFollowedCelebrityIds(String userId) {
+        List<String> followed;
+        if (followGraph.isReady()) {
+            followed = followGraph.followingIds(userId);
+        } else {
+            Query followingQuery = Query.query(Criteria.where("followerId").is(userId));
+            followingQuery.fields().include("followingId").exclude("_id");
+            followed = mongoTemplate.find(followingQuery, Document.class, "follows").stream()
+                    .map(doc -> doc.getString("followingId"))
+                    .collect(Collectors.toList());
+        }
+        List<ObjectId> followingIds = followed.stream()
+                .filter(id -> id != null && ObjectId.isValid(id))
+                .map(ObjectId::new)
+                .collect(Collectors.toList());
+        if (followingIds.isEmpty()) {
+            return List.of();
+        }
+
+        Query celebrityQuery = Query.query(Criteria.where("_id").in(followingIds).and("fanOutOnRead").is(true));
+        celebrityQuery.fields().include("_id");
+        return mongoTemplate.find(celebrityQuery, Document.class, "app_users").stream()
+                .map(doc -> doc.getObjectId("_id"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.dtos.CacheStatsDTO;
+import com.example.paf_backend_2025.dtos.UserProfileDTO;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.repositories.AppUserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of users and their profile projection, bounded by size
+ * (Caffeine's W-TinyLFU admission) and by time since write.
+ * <p>
+ * AppUserService invalidates entries on its own writes. Writes made by other
+ * app nodes are picked up from a change stream on app_users when
+ * app.users.cache.change-stream.enabled is set, which needs a replica set;
+ * without it, the TTL bounds how stale another node's copy can get.
+ * <p>
+ * Cached AppUser instances are shared, so callers may use them as references
+ * and for reading but must not modify them.
+ */
+@Component
+public class UserCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserCache.class);
+
+    private final AppUserRepository appUserRepository;
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, AppUser> users;
+    private final Cache<String, UserProfileDTO> profiles;
+
+    @Value("${app.users.cache.change-stream.enabled:false}")
+    private boolean changeStreamEnabled;
+
+    private volatile boolean running;
+    private Thread watcher;
+
+    public UserCache(AppUserRepository appUserRepository,
+                     MongoTemplate mongoTemplate,
+                     @Value("${app.users.cache.max-size:10000}") long maxSize,
+                     @Value("${app.users.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.appUserRepository = appUserRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Same contract as AppUserRepository.findById, deleted users included.
+     * Missing ids are not cached.
+     */
+    public Optional<AppUser> findById(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(users.get(id, key -> appUserRepository.findById(key).orElse(null)));
+    }
+
+    /**
+     * Users by id, loading every uncached id with one findAllById. Ids that
+     * do not exist are absent from the result.
+     */
+    public Map<String, AppUser> findAllById(Collection<String> ids) {
+        List<String> keys = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        return users.getAll(keys, missing -> {
+            Map<String, AppUser> found = new HashMap<>();
+            for (AppUser user : appUserRepository.findAllById(List.copyOf(missing))) {
+                found.put(user.getId(), user);
+            }
+            return found;
+        });
+    }
+
+    public Optional<UserProfileDTO> findProfile(String id, Function<String, UserProfileDTO> loader) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(profiles.get(id, loader));
+    }
+
+    public void invalidate(String id) {
+        users.invalidate(id);
+        profiles.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+        profiles.invalidateAll();
+    }
+
+    public List<CacheStatsDTO> getStats() {
+        return List.of(toStats("users", users), toStats("profiles", profiles));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatcher() {
+        if (!changeStreamEnabled) {
+            return;
+        }
+        running = true;
+        watcher = new Thread(this::watchLoop, "user-cache-invalidation");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    void stopWatcher() throws InterruptedException {
+        running = false;
+        if (watcher != null) {
+            watcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void watchLoop() {
+        BsonDocument resumeToken = null;
+        while (running) {
+            var stream = mongoTemplate.getCollection("app_users")
+                    .watch(List.of(Aggregates.match(Filters.in("operationType", "update", "replace", "delete"))))
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change == null) {
+                        continue;
+                    }
+                    resumeToken = change.getResumeToken();
+                    BsonValue id = change.getDocumentKey() == null ? null : change.getDocumentKey().get("_id");
+                    if (id != null && id.isObjectId()) {
+                        invalidate(id.asObjectId().getValue().toHexString());
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                // Events may have been missed while disconnected
+                log.warn("User cache change stream failed, retrying", e);
+                invalidateAll();
+                resumeToken = null;
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static CacheStatsDTO toStats(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        CacheStatsDTO dto = new CacheStatsDTO();
+        dto.setName(name);
+        dto.setSize(cache.estimatedSize());
+        dto.setHitCount(stats.hitCount());
+        dto.setMissCount(stats.missCount());
+        dto.setHitRate(stats.hitRate());
+        dto.setEvictionCount(stats.evictionCount());
+        return dto;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.UserSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * User search. Full-text queries over username, names and bio go to the Mongo
+ * text index on app_users; type-ahead is answered from an in-memory prefix
+ * index of normalized name tokens, so it never touches the database.
+ * <p>
+ * The prefix index is a sorted map from token to user ids: a prefix lookup is
+ * one O(log n) seek followed by an in-order walk that stops as soon as enough
+ * users are found. It loads at startup and is kept current by the user write
+ * paths; until it is ready, type-ahead falls back to an anchored regex query.
+ */
+@Service
+public class UserSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchService.class);
+    private static final Pattern SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ConcurrentSkipListMap<String, Set<String>> tokens = new ConcurrentSkipListMap<>();
+    private final Map<String, UserSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Value("${app.user-search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.user-search.default-limit:10}")
+    private int defaultLimit;
+
+    @Value("${app.user-search.max-limit:50}")
+    private int maxLimit;
+
+    public UserSearchService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Async("maintenanceExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Query query = Query.query(Criteria.where("deleteStatus").is(false));
+            query.fields().include("username").include("firstName").include("lastName").include("profileImageUrl");
+            try (var users = mongoTemplate.stream(query, AppUser.class)) {
+                users.forEach(this::index);
+            }
+            ready = true;
+            log.info("Indexed {} users for type-ahead ({} distinct tokens)", summaries.size(), tokens.size());
+        } catch (RuntimeException e) {
+            log.error("Loading the user type-ahead index failed", e);
+        }
+    }
+
+    /**
+     * Adds or refreshes a user; deleted users are removed instead.
+     */
+    public void index(AppUser user) {
+        if (!enabled || user == null || user.getId() == null) {
+            return;
+        }
+        if (user.isDeleteStatus()) {
+            remove(user.getId());
+            return;
+        }
+        Set<String> userTokens = new HashSet<>();
+        userTokens.addAll(tokenize(user.getUsername()));
+        userTokens.addAll(tokenize(user.getFirstName()));
+        userTokens.addAll(tokenize(user.getLastName()));
+
+        Set<String> previous = tokensByUser.put(user.getId(), userTokens);
+        if (previous != null) {
+            for (String token : previous) {
+                if (!userTokens.contains(token)) {
+                    removePosting(token, user.getId());
+                }
+            }
+        }
+        for (String token : userTokens) {
+            tokens.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(user.getId());
+        }
+        summaries.put(user.getId(), UserSummary.from(user));
+    }
+
+    public void remove(String userId) {
+        Set<String> previous = tokensByUser.remove(userId);
+        if (previous != null) {
+            previous.forEach(token -> removePosting(token, userId));
+        }
+        summaries.remove(userId);
+    }
+
+    /**
+     * Users whose name tokens start with every word of the query; the last
+     * word may be partial. Exact username matches rank first.
+     */
+    public List<UserSummary> typeahead(String q, Integer limit) {
+        int max = resolveLimit(limit);
+        List<String> words = tokenize(q);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        if (!ready) {
+            return typeaheadFromDatabase(words.get(words.size() - 1), max);
+        }
+
+        // Walk the longest word's prefix range; it is usually the most selective
+        String anchor = words.stream().max(Comparator.comparingInt(String::length)).get();
+        List<String> others = words.stream().filter(word -> !word.equals(anchor)).collect(Collectors.toList());
+        int scanLimit = max * 20;
+
+        Set<String> matches = new LinkedHashSet<>();
+        int scanned = 0;
+        for (Map.Entry<String, Set<String>> entry : tokens.tailMap(anchor, true).entrySet()) {
+            if (!entry.getKey().startsWith(anchor) || matches.size() >= scanLimit || scanned >= scanLimit) {
+                break;
+            }
+            for (String userId : entry.getValue()) {
+                scanned++;
+                if (others.isEmpty() || matchesAll(userId, others)) {
+                    matches.add(userId);
+                }
+            }
+        }
+
+        String normalizedQuery = String.join("", words);
+        return matches.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .sorted(Comparator
+                        .comparing((UserSummary user) -> !normalizedQuery.equals(normalize(user.getUsername())))
+                        .thenComparing(user -> normalize(user.getUsername())))
+                .limit(max)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Relevance-ranked full-text search over username, names and bio.
+     */
+    public List<AppUser> search(String q, Integer limit, String... fields) {
+        if (q == null || q.isBlank()) {
+            return List.of();
+        }
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(q))
+                .sortByScore()
+                .addCriteria(Criteria.where("deleteStatus").is(false))
+                .limit(resolveLimit(limit));
+        query.fields().include(fields);
+        return mongoTemplate.find(query, AppUser.class);
+    }
+
+    private boolean matchesAll(String userId, List<String> words) {
+        Set<String> userTokens = tokensByUser.getOrDefault(userId, Set.of());
+        for (String word : words) {
+            boolean found = false;
+            for (String token : userTokens) {
+                if (token.startsWith(word)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<UserSummary> typeaheadFromDatabase(String prefix, int limit) {
+        Pattern pattern = Pattern.compile("^" + Pattern.quote(prefix), Pattern.CASE_INSENSITIVE);
+        Query query = Query.query(Criteria.where("deleteStatus").is(false).orOperator(
+                Criteria.where("username").regex(pattern),
+                Criteria.where("firstName").regex(pattern),
+                Criteria.where("lastName").regex(pattern))).limit(limit);
+        query.fields().include("username").include("firstName").include("lastName").include("profileImageUrl");
+        return mongoTemplate.find(query, AppUser.class).stream()
+                .map(UserSummary::from)
+                .collect(Collectors.toList());
+    }
+
+    private void removePosting(String token, String userId) {
+        tokens.computeIfPresent(token, (t, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private int resolveLimit(Integer limit) {
+        return limit == null || limit <= 0 ? defaultLimit : Math.min(limit, maxLimit);
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SPLIT.split(normalize(text)))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    // Lower-cased with accents stripped so "José" is found by "jose"
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.paf_backend_2025.repositories;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.models.TimelineEntry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest extends EmbeddedMongoTest {
+
+    private static final int PAGE_SIZE = 4;
+
+    @Test
+    void tokenRoundTrips() {
+        Date createdAt = new Date(1_700_000_000_123L);
+        String id = new ObjectId().toHexString();
+
+        KeysetCursor cursor = KeysetCursor.parse(KeysetCursor.encode(createdAt, id));
+
+        assertThat(cursor.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(cursor.getId()).isEqualTo(id);
+    }
+
+    @Test
+    void missingTokenMeansFirstPage() {
+        assertThat(KeysetCursor.parse(null)).isNull();
+        assertThat(KeysetCursor.parse(" ")).isNull();
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        assertThatThrownBy(() -> KeysetCursor.parse("not a cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.parse("bm8tc2VwYXJhdG9y"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void newestFirstPagesVisitEveryRowOnceAcrossTimestampTies() {
+        List<TimelineEntry> entries = insertEntriesWithTies();
+        List<String> expected = entries.stream()
+                .sorted(Comparator.comparing(TimelineEntry::getCreatedAt).thenComparing(TimelineEntry::getId).reversed())
+                .map(TimelineEntry::getId)
+                .collect(Collectors.toList());
+
+        List<String> seen = page(cursor -> {
+            Query query = cursor == null ? new Query() : Query.query(cursor.before("createdAt"));
+            return query.with(KeysetCursor.newestFirst("createdAt"));
+        });
+
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void oldestFirstPagesVisitEveryRowOnceAcrossTimestampTies() {
+        List<TimelineEntry> entries = insertEntriesWithTies();
+        List<String> expected = entries.stream()
+                .sorted(Comparator.comparing(TimelineEntry::getCreatedAt).thenComparing(TimelineEntry::getId))
+                .map(TimelineEntry::getId)
+                .collect(Collectors.toList());
+
+        List<String> seen = page(cursor -> {
+            Query query = cursor == null ? new Query() : Query.query(cursor.after("createdAt"));
+            return query.with(KeysetCursor.oldestFirst("createdAt"));
+        });
+
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void afterObjectIdMatchesMappedAfterOnRawDocuments() {
+        List<TimelineEntry> entries = insertEntriesWithTies();
+        TimelineEntry middle = entries.get(entries.size() / 2);
+        KeysetCursor cursor = new KeysetCursor(middle.getCreatedAt(), middle.getId());
+
+        List<String> mapped = mongoTemplate.find(Query.query(cursor.after("createdAt"))
+                .with(KeysetCursor.oldestFirst("createdAt")), TimelineEntry.class).stream()
+                .map(TimelineEntry::getId)
+                .collect(Collectors.toList());
+        List<String> raw = mongoTemplate.find(Query.query(cursor.afterObjectId("createdAt"))
+                .with(KeysetCursor.oldestFirst("createdAt")), Document.class, "timeline_entries").stream()
+                .map(doc -> doc.getObjectId("_id").toHexString())
+                .collect(Collectors.toList());
+
+        assertThat(raw).isNotEmpty().isEqualTo(mapped);
+    }
+
+    // Follows next-page tokens the way a client would until a short page comes back
+    private List<String> page(Function<KeysetCursor, Query> queryFor) {
+        List<String> seen = new ArrayList<>();
+        String token = null;
+        while (true) {
+            List<TimelineEntry> page = mongoTemplate.find(queryFor.apply(KeysetCursor.parse(token)).limit(PAGE_SIZE),
+                    TimelineEntry.class);
+            page.forEach(entry -> seen.add(entry.getId()));
+            if (page.size() < PAGE_SIZE) {
+                return seen;
+            }
+            TimelineEntry last = page.get(page.size() - 1);
+            token = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+    }
+
+    // Three timestamps shared by 23 rows, so most page boundaries fall inside a tie
+    private List<TimelineEntry> insertEntriesWithTies() {
+        List<TimelineEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            Date createdAt = new Date(1_700_000_000_000L + (i % 3) * 1000L);
+            entries.add(mongoTemplate.insert(new TimelineEntry("owner", new ObjectId().toHexString(), "author", createdAt)));
+        }
+        return entries;
+    }
+}
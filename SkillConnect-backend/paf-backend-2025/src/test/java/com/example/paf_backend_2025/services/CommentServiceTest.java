@@ -0,0 +1,124 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
+import com.example.paf_backend_2025.dtos.MediaTypeDTO;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.Post;
+import com.example.paf_backend_2025.repositories.CommentRepository;
+import com.example.paf_backend_2025.repositories.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CommentServiceTest extends EmbeddedMongoTest {
+
+    private final UserCache userCache = mock(UserCache.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+
+    private CommentService commentService;
+    private AppUser user;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentService = new CommentService(
+                new MongoRepositoryFactory(mongoTemplate).getRepository(CommentRepository.class),
+                userCache, postRepository, mongoTemplate, new PostCounterService(mongoTemplate),
+                mock(NotificationPublisher.class), mock(ContentSearchService.class));
+        ReflectionTestUtils.setField(commentService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(commentService, "maxPageSize", 100);
+
+        user = new AppUser();
+        user.setFirstName("Alice");
+        user = mongoTemplate.insert(user);
+        post = new Post();
+        post.setUser(user);
+        post = mongoTemplate.insert(post);
+        when(userCache.findById(user.getId())).thenReturn(Optional.of(user));
+        when(postRepository.findById(post.getId())).thenReturn(Optional.of(post));
+    }
+
+    @Test
+    void threadPagesTopLevelCommentsWithReplyCounts() {
+        List<String> topLevel = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            topLevel.add(comment("comment " + i, null));
+        }
+        String reply = comment("reply", topLevel.get(0));
+        // A reply to a reply joins the top-level thread
+        comment("nested reply", reply);
+        commentService.deleteComment(comment("deleted reply", topLevel.get(0)));
+        comment("other reply", topLevel.get(3));
+        sameInstant();
+
+        List<MediaTypeDTO.CommentResponseDTO> thread = all(cursor -> commentService.getThread(post.getId(), cursor, 2));
+
+        assertThat(thread).extracting(MediaTypeDTO.CommentResponseDTO::getId).containsExactlyElementsOf(topLevel);
+        Map<String, Long> replyCounts = thread.stream().collect(Collectors.toMap(
+                MediaTypeDTO.CommentResponseDTO::getId, MediaTypeDTO.CommentResponseDTO::getReplyCount));
+        assertThat(replyCounts).containsEntry(topLevel.get(0), 2L)
+                .containsEntry(topLevel.get(3), 1L)
+                .containsEntry(topLevel.get(1), 0L);
+    }
+
+    @Test
+    void repliesPageOldestFirstAcrossCursors() {
+        String parent = comment("question", null);
+        List<String> replies = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            replies.add(comment("answer " + i, parent));
+        }
+        commentService.deleteComment(replies.remove(2));
+        sameInstant();
+
+        List<MediaTypeDTO.CommentResponseDTO> page = all(cursor -> commentService.getReplies(parent, cursor, 2));
+
+        assertThat(page).extracting(MediaTypeDTO.CommentResponseDTO::getId).containsExactlyElementsOf(replies);
+        assertThat(page).extracting(MediaTypeDTO.CommentResponseDTO::getParentId).containsOnly(parent);
+        assertThat(commentService.getReplies(replies.get(0), null, 2).getItems()).isEmpty();
+    }
+
+    // Leaves only the _id tie-break to order comments and position the cursor
+    private void sameInstant() {
+        mongoTemplate.updateMulti(new Query(), Update.update("createdAt", new Date()), "comments");
+    }
+
+    private String comment(String content, String parentId) {
+        MediaTypeDTO.CommentDTO dto = new MediaTypeDTO.CommentDTO();
+        dto.setContent(content);
+        dto.setUserId(user.getId());
+        dto.setPostId(post.getId());
+        dto.setParentId(parentId);
+        return commentService.createComment(dto).getId();
+    }
+
+    private static List<MediaTypeDTO.CommentResponseDTO> all(
+            Function<String, CursorPageDTO<MediaTypeDTO.CommentResponseDTO>> pages) {
+        List<MediaTypeDTO.CommentResponseDTO> items = new ArrayList<>();
+        String cursor = null;
+        int fetched = 0;
+        do {
+            CursorPageDTO<MediaTypeDTO.CommentResponseDTO> page = pages.apply(cursor);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(2);
+            items.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && ++fetched < 10);
+        return items;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.dtos.SearchHitDTO;
+import com.example.paf_backend_2025.models.Post;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class ContentSearchServiceTest extends EmbeddedMongoTest {
+
+    @TempDir
+    Path indexDir;
+
+    private MongoTemplate racing;
+    private ContentSearchService search;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        racing = spy(mongoTemplate);
+        search = new ContentSearchService(racing);
+        ReflectionTestUtils.setField(search, "enabled", true);
+        ReflectionTestUtils.setField(search, "indexDir", indexDir.toString());
+        ReflectionTestUtils.setField(search, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(search, "maxPageSize", 100);
+        ReflectionTestUtils.setField(search, "maxWindow", 1000);
+        ReflectionTestUtils.setField(search, "maxStalenessSeconds", 90L);
+        search.open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        search.close();
+    }
+
+    @Test
+    void reindexSwapsInANewGenerationFromTheDatabase() throws IOException {
+        Path first = generation();
+        post("kept cello practice");
+        // Never indexed live, as if written through another node
+        Post elsewhere = new Post();
+        elsewhere.setCaption("violin scales");
+        mongoTemplate.insert(elsewhere);
+
+        search.reindex();
+
+        assertThat(generation()).isNotEqualTo(first);
+        assertThat(ids("cello")).hasSize(1);
+        assertThat(ids("violin")).hasSize(1);
+        assertThat(search.isReindexing()).isFalse();
+    }
+
+    @Test
+    void writesDuringTheStreamAreResynced() throws IOException {
+        Post deleted = post("piano etudes");
+        Post edited = post("drum rudiments");
+        // The stream has read both posts when a delete and an edit land, and writes them afterwards
+        doAnswer(invocation -> {
+            List<Document> read = stream(invocation.callRealMethod());
+            deleted.setDeleteStatus(true);
+            mongoTemplate.save(deleted);
+            search.indexPost(deleted);
+            edited.setCaption("bass grooves");
+            mongoTemplate.save(edited);
+            search.indexPost(edited);
+            return read.stream();
+        }).when(racing).stream(any(Query.class), eq(Document.class), eq("posts"));
+
+        search.reindex();
+
+        assertThat(ids("piano")).isEmpty();
+        assertThat(ids("drum")).isEmpty();
+        assertThat(ids("bass")).containsExactly(edited.getId());
+    }
+
+    @Test
+    void recentWritesALaggingSecondaryMissedAreResynced() throws IOException {
+        Post edited = post("guitar chords");
+        List<Document> lagging = stream(mongoTemplate.stream(new Query(), Document.class, "posts"));
+        edited.setCaption("ukulele chords");
+        mongoTemplate.save(edited);
+        search.indexPost(edited);
+        // The secondary still has the caption from before the edit
+        doAnswer(invocation -> lagging.stream())
+                .when(racing).stream(any(Query.class), eq(Document.class), eq("posts"));
+
+        search.reindex();
+
+        assertThat(ids("guitar")).isEmpty();
+        assertThat(ids("ukulele")).containsExactly(edited.getId());
+    }
+
+    private Post post(String caption) {
+        Post post = new Post();
+        post.setCaption(caption);
+        post = mongoTemplate.insert(post);
+        search.indexPost(post);
+        return post;
+    }
+
+    private List<String> ids(String q) throws IOException {
+        search.refresh();
+        return search.search(q, ContentSearchService.TYPE_POST, null, null).getItems().stream()
+                .map(SearchHitDTO::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Path generation() throws IOException {
+        try (Stream<Path> children = Files.list(indexDir)) {
+            List<Path> generations = children.collect(Collectors.toList());
+            assertThat(generations).hasSize(1);
+            return generations.get(0);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> stream(Object docs) {
+        try (Stream<Document> stream = (Stream<Document>) docs) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+}
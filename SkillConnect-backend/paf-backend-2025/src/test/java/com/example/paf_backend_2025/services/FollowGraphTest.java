@@ -0,0 +1,111 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class FollowGraphTest extends EmbeddedMongoTest {
+
+    private FollowGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FollowGraph(mongoTemplate);
+    }
+
+    @Test
+    void loadInstallsDistinctSortedEdges() {
+        follow("alice", "bob");
+        follow("carol", "bob");
+        follow("alice", "carol");
+        // A duplicate pair from before the unique index existed
+        follow("alice", "bob");
+
+        assertThat(graph.isReady()).isFalse();
+        graph.reload();
+
+        assertThat(graph.isReady()).isTrue();
+        assertThat(graph.followerIds("bob")).containsExactlyInAnyOrder("alice", "carol");
+        assertThat(graph.followingIds("alice")).containsExactlyInAnyOrder("bob", "carol");
+        assertThat(graph.followerCount("bob")).isEqualTo(2);
+        assertThat(graph.followerCount("alice")).isZero();
+        assertThat(graph.followerIds("nobody")).isEmpty();
+        assertThat(graph.getStats().getEdges()).isEqualTo(3);
+        assertThat(graph.getStats().getUsers()).isEqualTo(3);
+    }
+
+    @Test
+    void liveEdgesAddAndRemoveOnce() {
+        follow("alice", "bob");
+        graph.reload();
+
+        graph.addEdge("alice", "bob");
+        graph.addEdge("carol", "bob");
+        graph.addEdge("dave", "erin");
+        assertThat(graph.followerIds("bob")).containsExactlyInAnyOrder("alice", "carol");
+        assertThat(graph.followerIds("erin")).containsExactly("dave");
+        assertThat(graph.getStats().getEdges()).isEqualTo(3);
+
+        graph.removeEdge("alice", "bob");
+        graph.removeEdge("alice", "bob");
+        graph.removeEdge("alice", "nobody");
+        assertThat(graph.followerIds("bob")).containsExactly("carol");
+        assertThat(graph.followingIds("alice")).isEmpty();
+        assertThat(graph.getStats().getEdges()).isEqualTo(2);
+    }
+
+    @Test
+    void setsGrowAndShrinkInOrder() {
+        graph.reload();
+        List<String> fans = IntStream.range(0, 40).mapToObj(i -> String.format("fan%02d", i)).collect(Collectors.toList());
+        for (int i = fans.size() - 1; i >= 0; i--) {
+            graph.addEdge(fans.get(i), "star");
+        }
+        assertThat(graph.followerCount("star")).isEqualTo(40);
+        assertThat(graph.followerIds("star")).containsExactlyInAnyOrderElementsOf(fans);
+
+        for (int i = 0; i < fans.size(); i += 2) {
+            graph.removeEdge(fans.get(i), "star");
+        }
+        assertThat(graph.followerIds("star")).containsExactlyInAnyOrderElementsOf(
+                IntStream.range(0, 40).filter(i -> i % 2 == 1).mapToObj(fans::get).collect(Collectors.toList()));
+        assertThat(graph.getStats().getEdges()).isEqualTo(20);
+    }
+
+    @Test
+    void changesDuringAReloadAreReplayedOnTop() {
+        follow("alice", "bob");
+        follow("carol", "bob");
+        MongoTemplate racing = spy(mongoTemplate);
+        FollowGraph loading = new FollowGraph(racing);
+        // Writes that land after the edges were read, but before the new graph is swapped in
+        doAnswer(invocation -> {
+            var edges = invocation.callRealMethod();
+            loading.addEdge("dave", "bob");
+            loading.removeEdge("carol", "bob");
+            return edges;
+        }).when(racing).stream(any(Query.class), eq(Document.class), eq("follows"));
+
+        loading.reload();
+
+        assertThat(loading.followerIds("bob")).containsExactlyInAnyOrder("alice", "dave");
+        assertThat(loading.getStats().getEdges()).isEqualTo(2);
+    }
+
+    private void follow(String followerId, String followingId) {
+        mongoTemplate.insert(new Document("followerId", followerId).append("followingId", followingId), "follows");
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.Follow;
+import com.example.paf_backend_2025.repositories.FollowRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class FollowServiceTest extends EmbeddedMongoTest {
+
+    private FollowService followService;
+    private String alice;
+    private String bob;
+
+    @BeforeEach
+    void setUp() {
+        followService = new FollowService();
+        ReflectionTestUtils.setField(followService, "followRepository",
+                new MongoRepositoryFactory(mongoTemplate).getRepository(FollowRepository.class));
+        ReflectionTestUtils.setField(followService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(followService, "followGraph", mock(FollowGraph.class));
+        ReflectionTestUtils.setField(followService, "recommendationService", mock(RecommendationService.class));
+
+        alice = mongoTemplate.insert(new AppUser()).getId();
+        bob = mongoTemplate.insert(new AppUser()).getId();
+    }
+
+    @Test
+    void followingTwiceKeepsOneEdge() {
+        assertThat(followService.followUser(alice, bob)).isEqualTo("Followed successfully.");
+        assertThat(followService.followUser(alice, bob)).isEqualTo("Already following.");
+
+        assertThat(mongoTemplate.count(new Query(), Follow.class)).isEqualTo(1);
+        assertThat(followService.isFollowing(alice, bob)).isTrue();
+        assertThat(followService.getFollowingCount(alice)).isEqualTo(1);
+        assertThat(followService.getFollowerCount(bob)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentFollowsStoreOneEdge() throws Exception {
+        // Built by FollowPairMigration in a deployed database
+        mongoTemplate.indexOps("follows").ensureIndex(new CompoundIndexDefinition(
+                new Document("followerId", 1).append("followingId", 1)).named("follower_following_idx").unique());
+
+        List<String> results = race(8, () -> followService.followUser(alice, bob));
+
+        assertThat(results).containsOnlyOnce("Followed successfully.");
+        assertThat(results).filteredOn("Already following."::equals).hasSize(7);
+        assertThat(mongoTemplate.count(new Query(), Follow.class)).isEqualTo(1);
+        assertThat(followService.getFollowingCount(alice)).isEqualTo(1);
+        assertThat(followService.getFollowerCount(bob)).isEqualTo(1);
+    }
+
+    @Test
+    void followingAMissingUserLeavesNothingBehind() {
+        String missing = new ObjectId().toHexString();
+
+        assertThat(followService.followUser(alice, missing)).isEqualTo("User not found.");
+        assertThat(followService.followUser(missing, bob)).isEqualTo("User not found.");
+
+        assertThat(mongoTemplate.count(new Query(), Follow.class)).isZero();
+        assertThat(followService.getFollowingCount(alice)).isZero();
+        assertThat(followService.getFollowerCount(bob)).isZero();
+    }
+
+    @Test
+    void unfollowReleasesThePair() {
+        followService.followUser(alice, bob);
+
+        assertThat(followService.unfollowUser(alice, bob)).isEqualTo("Unfollowed successfully.");
+        assertThat(followService.unfollowUser(alice, bob)).isEqualTo("Not following.");
+        assertThat(followService.getFollowingCount(alice)).isZero();
+        assertThat(followService.getFollowerCount(bob)).isZero();
+
+        assertThat(followService.followUser(alice, bob)).isEqualTo("Followed successfully.");
+        assertThat(followService.getFollowerCount(bob)).isEqualTo(1);
+    }
+
+    @Test
+    void cannotFollowYourself() {
+        assertThat(followService.followUser(alice, alice)).isEqualTo("You cannot follow yourself.");
+        assertThat(mongoTemplate.count(new Query(), Follow.class)).isZero();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.dtos.ProgressBucketDTO;
+import com.example.paf_backend_2025.dtos.ProgressStatsDTO;
+import com.example.paf_backend_2025.dtos.SkillStatsDTO;
+import com.example.paf_backend_2025.dtos.UpdateLearningProgressUpdateDTO;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.LearningProgressUpdate;
+import com.example.paf_backend_2025.models.MigrationRecord;
+import com.example.paf_backend_2025.models.ProgressStats;
+import com.example.paf_backend_2025.models.SkillStats;
+import com.example.paf_backend_2025.repositories.LearningProgressUpdateRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LearningProgressUpdateServiceTest extends EmbeddedMongoTest {
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+    private ProgressAnalyticsService analytics;
+    private ProgressRollupService rollups;
+    private LearningProgressUpdateService progressService;
+    private AppUser alice;
+
+    @BeforeEach
+    void setUp() {
+        analytics = new ProgressAnalyticsService(mongoTemplate, "UTC");
+        rollups = new ProgressRollupService(mongoTemplate, "UTC");
+        ReflectionTestUtils.setField(rollups, "maxBuckets", 400);
+        progressService = new LearningProgressUpdateService(
+                new MongoRepositoryFactory(mongoTemplate).getRepository(LearningProgressUpdateRepository.class),
+                mock(AppUserService.class),
+                mock(RecommendationService.class),
+                mock(ContentSearchService.class),
+                analytics,
+                rollups,
+                mongoTemplate);
+        alice = mongoTemplate.insert(new AppUser());
+    }
+
+    @Test
+    void racingDeletesApplyTheirDeltaOnce() throws Exception {
+        history("tutorial", 2, 1.0, 10);
+        LearningProgressUpdate doomed = history("project", 1, 2.0, 30);
+        analytics.seed();
+
+        List<Boolean> deleted = race(8, () -> progressService.deleteProgressUpdate(doomed.getId()));
+
+        assertThat(deleted).containsOnlyOnce(true);
+        assertThat(analytics.getUserStats(alice.getId()).getEntryCount()).isEqualTo(1);
+        assertSameAsSeedFromScratch();
+    }
+
+    @Test
+    void racingEditsChainTheirDeltas() throws Exception {
+        LearningProgressUpdate progress = history("tutorial", 1, 1.0, 10);
+        analytics.seed();
+        AtomicInteger hours = new AtomicInteger();
+
+        race(8, () -> progressService.updateProgressUpdate(progress.getId(),
+                edit(hours.incrementAndGet() % 2 == 0 ? "project" : "course", hours.get(), 10.0 * hours.get())));
+
+        LearningProgressUpdate stored = mongoTemplate.findById(progress.getId(), LearningProgressUpdate.class);
+        assertThat(analytics.getUserStats(alice.getId()).getTotalEstimatedHours()).isEqualTo(stored.getEstimatedTime());
+        assertSameAsSeedFromScratch();
+    }
+
+    @Test
+    void racingDeletesAndEditsAgreeWithARollupRebuild() throws Exception {
+        history("tutorial", 40, 1.0, 10);
+        LearningProgressUpdate doomed = history("project", 20, 2.0, 30);
+        LearningProgressUpdate edited = history("course", 3, 1.5, 20);
+        rollups.rebuild(today.minusDays(70), today);
+        AtomicInteger hours = new AtomicInteger();
+
+        race(2, () -> progressService.deleteProgressUpdate(doomed.getId()));
+        race(8, () -> progressService.updateProgressUpdate(edited.getId(),
+                edit(hours.incrementAndGet() % 2 == 0 ? "project" : "tutorial", hours.get(), 10.0 * hours.get())));
+
+        List<List<ProgressBucketDTO>> live = buckets();
+        assertThat(rollups.rebuild(today.minusDays(70), today)).isPositive();
+        assertThat(buckets()).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(live);
+    }
+
+    @Test
+    void missingOrDeletedUpdatesAreReported() {
+        LearningProgressUpdate progress = history("tutorial", 1, 1.0, 10);
+
+        assertThat(progressService.deleteProgressUpdate(progress.getId())).isTrue();
+        assertThat(progressService.deleteProgressUpdate(progress.getId())).isFalse();
+        assertThat(progressService.updateProgressUpdate(progress.getId(), edit("course", 2.0, 20))).isNull();
+        assertThat(progressService.updateProgressUpdate(new ObjectId().toHexString(), edit("course", 2.0, 20))).isNull();
+    }
+
+    // Drops every analytics document and seeds again with all updates before the boundary
+    private void assertSameAsSeedFromScratch() {
+        ProgressStatsDTO user = analytics.getUserStats(alice.getId());
+        List<SkillStatsDTO> skills = analytics.getSkillStats();
+
+        mongoTemplate.dropCollection(ProgressStats.class);
+        mongoTemplate.dropCollection(SkillStats.class);
+        mongoTemplate.dropCollection(MigrationRecord.class);
+        ProgressAnalyticsService rebuilt = new ProgressAnalyticsService(mongoTemplate, "UTC");
+        rebuilt.seed();
+
+        assertThat(rebuilt.getUserStats(alice.getId())).usingRecursiveComparison().isEqualTo(user);
+        assertThat(rebuilt.getSkillStats()).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(skills);
+    }
+
+    // Every non-empty bucket per scope and granularity; deltas can leave emptied buckets behind
+    private List<List<ProgressBucketDTO>> buckets() {
+        List<List<ProgressBucketDTO>> buckets = new ArrayList<>();
+        for (String userId : new String[]{alice.getId(), null}) {
+            for (String granularity : List.of(ProgressRollupService.DAY, ProgressRollupService.WEEK,
+                    ProgressRollupService.MONTH)) {
+                buckets.add(rollups.getBuckets(userId, granularity, today.minusDays(70), today).stream()
+                        .filter(bucket -> bucket.getCount() > 0)
+                        .collect(Collectors.toList()));
+            }
+        }
+        return buckets;
+    }
+
+    private LearningProgressUpdate history(String templateType, int daysAgo, double estimatedTime, double completedProgress) {
+        LearningProgressUpdate progress = new LearningProgressUpdate();
+        progress.setUser(alice);
+        progress.setTemplateType(templateType);
+        progress.setEstimatedTime(estimatedTime);
+        progress.setCompletedProgress(completedProgress);
+        progress.setCreatedAt(Date.from(today.minusDays(daysAgo).atTime(12, 0).toInstant(ZoneOffset.UTC)));
+        return mongoTemplate.insert(progress);
+    }
+
+    private static UpdateLearningProgressUpdateDTO edit(String templateType, double estimatedTime, double completedProgress) {
+        UpdateLearningProgressUpdateDTO dto = new UpdateLearningProgressUpdateDTO();
+        dto.setContent("edited");
+        dto.setTemplateType(templateType);
+        dto.setEstimatedTime(estimatedTime);
+        dto.setCompletedProgress(completedProgress);
+        return dto;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.dtos.LikeDTO;
+import com.example.paf_backend_2025.dtos.LikeResponseDTO;
+import com.example.paf_backend_2025.dtos.LikeToggleDTO;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.Post;
+import com.example.paf_backend_2025.repositories.LikeRepository;
+import com.example.paf_backend_2025.repositories.PostRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeServiceTest extends EmbeddedMongoTest {
+
+    private final UserCache userCache = mock(UserCache.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final NotificationPublisher notificationPublisher = mock(NotificationPublisher.class);
+
+    private LikeService likeService;
+    private PostCounterService postCounterService;
+    private AppUser user;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        postCounterService = new PostCounterService(mongoTemplate);
+        likeService = new LikeService(mock(LikeRepository.class), userCache, postRepository, mongoTemplate,
+                postCounterService, notificationPublisher);
+
+        user = new AppUser();
+        user.setFirstName("Alice");
+        user = mongoTemplate.insert(user);
+        AppUser author = mongoTemplate.insert(new AppUser());
+        post = new Post();
+        post.setUser(author);
+        post = mongoTemplate.insert(post);
+
+        when(userCache.findById(user.getId())).thenReturn(Optional.of(user));
+        when(postRepository.findById(post.getId())).thenReturn(Optional.of(post));
+    }
+
+    @Test
+    void toggleLikeAlternatesAndKeepsCountInStep() {
+        LikeToggleDTO first = likeService.toggleLike(like()).orElseThrow();
+        LikeToggleDTO second = likeService.toggleLike(like()).orElseThrow();
+        LikeToggleDTO third = likeService.toggleLike(like()).orElseThrow();
+
+        assertThat(List.of(first.isLiked(), second.isLiked(), third.isLiked())).containsExactly(true, false, true);
+        assertThat(List.of(first.getLikeCount(), second.getLikeCount(), third.getLikeCount())).containsExactly(1L, 0L, 1L);
+        assertThat(likeCount()).isEqualTo(1);
+        assertThat(postCounterService.get(post.getId(), PostCounterService.LIKE_COUNT)).isEqualTo(1);
+    }
+
+    @Test
+    void toggleLikeOnMissingPostLeavesNoLikeBehind() {
+        LikeDTO dto = new LikeDTO();
+        dto.setUserId(user.getId());
+        dto.setPostId(new ObjectId().toHexString());
+
+        assertThat(likeService.toggleLike(dto)).isEmpty();
+        assertThat(likeCount()).isZero();
+    }
+
+    @Test
+    void repeatedCreateLikeReturnsTheExistingLike() {
+        LikeResponseDTO first = likeService.createLike(like());
+        LikeResponseDTO second = likeService.createLike(like());
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(likeCount()).isEqualTo(1);
+        assertThat(postCounterService.get(post.getId(), PostCounterService.LIKE_COUNT)).isEqualTo(1);
+        verify(notificationPublisher, times(1)).publish(any());
+    }
+
+    @Test
+    void concurrentCreateLikesStoreOneLike() throws Exception {
+        // Built by LikeUniquenessMigration in a deployed database
+        mongoTemplate.indexOps("likes").ensureIndex(new CompoundIndexDefinition(
+                new Document("user.$id", 1).append("post.$id", 1)).named("user_post_idx").unique());
+
+        List<String> ids = race(8, () -> likeService.createLike(like()).getId());
+
+        assertThat(ids).doesNotContainNull().containsOnly(ids.get(0));
+        assertThat(likeCount()).isEqualTo(1);
+        assertThat(postCounterService.get(post.getId(), PostCounterService.LIKE_COUNT)).isEqualTo(1);
+        verify(notificationPublisher, times(1)).publish(any());
+    }
+
+    @Test
+    void batchChecksAreCapped() {
+        ReflectionTestUtils.setField(likeService, "maxBatchPosts", 2);
+        likeService.createLike(like());
+        String other = new ObjectId().toHexString();
+
+        assertThat(likeService.getLikedPostIds(user.getId(), List.of(post.getId(), other, other)))
+                .containsExactly(post.getId());
+        assertThatThrownBy(() -> likeService.getLikedPostIds(user.getId(),
+                List.of(post.getId(), other, new ObjectId().toHexString())))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(likeService.hasUserLikedPost(user.getId(), post.getId())).isTrue();
+    }
+
+    private LikeDTO like() {
+        LikeDTO dto = new LikeDTO();
+        dto.setUserId(user.getId());
+        dto.setPostId(post.getId());
+        return dto;
+    }
+
+    private long likeCount() {
+        return mongoTemplate.count(new Query(), "likes");
+    }
+}
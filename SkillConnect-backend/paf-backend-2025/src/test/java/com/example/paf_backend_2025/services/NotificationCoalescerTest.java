@@ -0,0 +1,125 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.models.Notification;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationCoalescerTest extends EmbeddedMongoTest {
+
+    // One window spanning every timestamp a test can produce, so no batch straddles a boundary
+    private static final long WINDOW_MINUTES = Integer.MAX_VALUE;
+
+    private NotificationCoalescer coalescer;
+    private final String recipient = new ObjectId().toHexString();
+    private final String post = new ObjectId().toHexString();
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new NotificationCoalescer(mongoTemplate, WINDOW_MINUTES, 3);
+    }
+
+    @Test
+    void likesOnOnePostFoldIntoOneNotification() {
+        coalescer.write(List.of(like(post, "bob"), like(post, "carol"), like(post, "bob")));
+
+        Notification notification = single();
+        assertThat(notification.getActorCount()).isEqualTo(2);
+        assertThat(notification.getSampleActors()).containsExactly("bob", "carol");
+        assertThat(notification.isRead()).isFalse();
+    }
+
+    @Test
+    void laterBatchesMergeIntoTheSameWindow() {
+        coalescer.write(List.of(like(post, "bob")));
+        coalescer.write(List.of(like(post, "carol"), like(post, "dave")));
+        coalescer.write(List.of(like(post, "erin"), like(post, "bob")));
+
+        Notification notification = single();
+        assertThat(notification.getActorCount()).isEqualTo(4);
+        assertThat(notification.getSampleActors()).hasSize(3).startsWith("bob", "erin").doesNotHaveDuplicates();
+    }
+
+    @Test
+    void writeReturnsTheMergedDocumentByRecipient() {
+        coalescer.write(List.of(like(post, "bob")));
+        List<Notification> written = coalescer.write(List.of(like(post, "carol"))).get(recipient);
+
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0).getActorCount()).isEqualTo(2);
+        assertThat(written.get(0).getId()).isEqualTo(single().getId());
+        // The stored actor ids stay on the server
+        assertThat(written.get(0).getActorIds()).isNull();
+        assertThat(single().getActorIds()).containsExactly("bob", "carol");
+    }
+
+    @Test
+    void otherTargetsTypesAndRecipientsStaySeparate() {
+        String otherPost = new ObjectId().toHexString();
+        coalescer.write(List.of(
+                like(post, "bob"),
+                like(otherPost, "bob"),
+                event(recipient, NotificationEvent.TYPE_COMMENT, post, "bob"),
+                event(new ObjectId().toHexString(), NotificationEvent.TYPE_LIKE, post, "bob")));
+
+        assertThat(mongoTemplate.count(new Query(), Notification.class)).isEqualTo(4);
+    }
+
+    @Test
+    void eventsWithoutATargetAreInsertedOneByOne() {
+        coalescer.write(List.of(
+                new NotificationEvent(recipient, "Welcome", "Hello"),
+                new NotificationEvent(recipient, "Welcome", "Hello")));
+
+        assertThat(mongoTemplate.count(new Query(), Notification.class)).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentWritersLandOnOneDocument() throws Exception {
+        // Declared on the Notification entity; created explicitly here since index creation is off in tests
+        mongoTemplate.indexOps(Notification.class).ensureIndex(new CompoundIndexDefinition(
+                new Document("coalesceKey", 1)).named("coalesce_key_idx").unique().sparse());
+        AtomicInteger actors = new AtomicInteger();
+
+        race(8, () -> coalescer.write(List.of(like(post, "actor" + actors.incrementAndGet()))));
+
+        Notification notification = single();
+        assertThat(notification.getActorCount()).isEqualTo(8);
+        assertThat(notification.getSampleActors()).hasSize(3).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void anActorRacingItselfIsCountedOnce() throws Exception {
+        coalescer.write(List.of(like(post, "bob")));
+
+        race(8, () -> coalescer.write(List.of(like(post, "carol"))));
+
+        Notification notification = single();
+        assertThat(notification.getActorCount()).isEqualTo(2);
+        assertThat(notification.getActorIds()).containsExactlyInAnyOrder("bob", "carol");
+    }
+
+    private Notification single() {
+        List<Notification> all = mongoTemplate.findAll(Notification.class);
+        assertThat(all).hasSize(1);
+        return all.get(0);
+    }
+
+    private NotificationEvent like(String targetId, String actor) {
+        return event(recipient, NotificationEvent.TYPE_LIKE, targetId, actor);
+    }
+
+    // Actor ids double as names so distinct actors are easy to read in assertions
+    private static NotificationEvent event(String recipientId, String type, String targetId, String actor) {
+        return new NotificationEvent(recipientId, "title", actor + " did something", type, targetId, actor, actor);
+    }
+}
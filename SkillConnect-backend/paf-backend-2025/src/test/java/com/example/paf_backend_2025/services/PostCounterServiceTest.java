@@ -0,0 +1,69 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.models.Post;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static com.example.paf_backend_2025.services.PostCounterService.COMMENT_COUNT;
+import static com.example.paf_backend_2025.services.PostCounterService.LIKE_COUNT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostCounterServiceTest extends EmbeddedMongoTest {
+
+    private PostCounterService postCounterService;
+    private String postId;
+
+    @BeforeEach
+    void setUp() {
+        postCounterService = new PostCounterService(mongoTemplate);
+        postId = mongoTemplate.insert(new Post()).getId();
+    }
+
+    @Test
+    void deltasAdjustOnlyTheNamedCounter() {
+        postCounterService.increment(postId, LIKE_COUNT);
+        postCounterService.increment(postId, LIKE_COUNT);
+        postCounterService.increment(postId, COMMENT_COUNT);
+        postCounterService.decrement(postId, LIKE_COUNT);
+
+        assertThat(postCounterService.get(postId, LIKE_COUNT)).isEqualTo(1);
+        assertThat(postCounterService.get(postId, COMMENT_COUNT)).isEqualTo(1);
+    }
+
+    @Test
+    void decrementsStopAtZero() {
+        postCounterService.decrement(postId, LIKE_COUNT);
+        assertThat(postCounterService.decrementAndGet(postId, LIKE_COUNT)).isZero();
+
+        assertThat(postCounterService.incrementAndGet(postId, LIKE_COUNT)).isEqualTo(1);
+        assertThat(postCounterService.decrementAndGet(postId, LIKE_COUNT)).isZero();
+        assertThat(postCounterService.get(postId, LIKE_COUNT)).isZero();
+    }
+
+    @Test
+    void missingPostsAreReportedNotCreated() {
+        String missing = new ObjectId().toHexString();
+
+        assertThat(postCounterService.incrementAndGet(missing, LIKE_COUNT)).isNull();
+        assertThat(postCounterService.get(missing, LIKE_COUNT)).isZero();
+        assertThat(postCounterService.get("not-an-id", LIKE_COUNT)).isZero();
+        assertThat(mongoTemplate.count(new Query(), Post.class)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentDeltasAreNotLost() throws Exception {
+        List<Long> afterIncrements = race(20, () -> postCounterService.incrementAndGet(postId, LIKE_COUNT));
+        assertThat(afterIncrements).doesNotHaveDuplicates().contains(20L);
+        assertThat(postCounterService.get(postId, LIKE_COUNT)).isEqualTo(20);
+
+        // More decrements than likes: the surplus is absorbed at zero
+        List<Long> afterDecrements = race(25, () -> postCounterService.decrementAndGet(postId, LIKE_COUNT));
+        assertThat(afterDecrements).allMatch(count -> count >= 0);
+        assertThat(postCounterService.get(postId, LIKE_COUNT)).isZero();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.dtos.ProgressStatsDTO;
+import com.example.paf_backend_2025.dtos.SkillStatsDTO;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.LearningProgressUpdate;
+import com.example.paf_backend_2025.models.MigrationRecord;
+import com.example.paf_backend_2025.models.ProgressStats;
+import com.example.paf_backend_2025.models.SkillStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressAnalyticsServiceTest extends EmbeddedMongoTest {
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+    private ProgressAnalyticsService analytics;
+    private AppUser alice;
+    private AppUser bob;
+
+    @BeforeEach
+    void setUp() {
+        analytics = new ProgressAnalyticsService(mongoTemplate, "UTC");
+        alice = mongoTemplate.insert(new AppUser());
+        bob = mongoTemplate.insert(new AppUser());
+    }
+
+    @Test
+    void liveDeltasAgreeWithASeedFromScratch() {
+        // History recorded before the analytics existed
+        LearningProgressUpdate oldTutorial = history(alice, "tutorial", 4, 2.0, 30);
+        history(alice, "tutorial", 3, 1.5, 20);
+        LearningProgressUpdate oldProject = history(alice, "project", 1, 3.0, 50);
+        history(bob, "tutorial", 10, 0.5, 10);
+        history(bob, null, 2, 1.0, 5);
+
+        // A live write before the backfill has run must neither be lost nor stop the backfill
+        create(alice, "course", 0, 1.0, 15);
+        assertThat(analytics.seed()).isEqualTo(2);
+
+        LearningProgressUpdate fresh = create(bob, "project", 0, 2.5, 40);
+        create(alice, "tutorial", 0, 0.5, 5);
+        edit(oldTutorial, "project", 2.5, 35);
+        edit(fresh, "project", 3.0, 45);
+        delete(oldProject);
+        LearningProgressUpdate lastOfDay = create(bob, "course", 6, 1.0, 10);
+        delete(lastOfDay);
+
+        assertSameAsSeedFromScratch();
+    }
+
+    @Test
+    void seedRunsOnceBehindItsMarker() {
+        history(alice, "tutorial", 1, 1.0, 10);
+        assertThat(analytics.seed()).isEqualTo(1);
+        ProgressStatsDTO seeded = analytics.getUserStats(alice.getId());
+
+        // Rows the callbacks never saw stay out: a rerun only reads the marker
+        history(alice, "tutorial", 2, 1.0, 10);
+
+        assertThat(analytics.seed()).isZero();
+        assertThat(new ProgressAnalyticsService(mongoTemplate, "UTC").seed()).isZero();
+        assertThat(analytics.getUserStats(alice.getId())).usingRecursiveComparison().isEqualTo(seeded);
+        assertThat(mongoTemplate.findById(ProgressAnalyticsService.MIGRATION, MigrationRecord.class).getCompletedAt())
+                .isNotNull();
+    }
+
+    @Test
+    void concurrentFirstCreatesAreEachCountedOnce() throws Exception {
+        analytics.seed();
+        AtomicInteger hours = new AtomicInteger();
+
+        race(8, () -> create(alice, "tutorial", 0, hours.incrementAndGet(), 10));
+
+        ProgressStatsDTO stats = analytics.getUserStats(alice.getId());
+        assertThat(stats.getEntryCount()).isEqualTo(8);
+        assertThat(stats.getTotalEstimatedHours()).isEqualTo(36.0);
+        assertThat(stats.getActiveDays()).isEqualTo(1);
+        assertSameAsSeedFromScratch();
+    }
+
+    @Test
+    void deletingTheOnlyUpdateOfADayRecomputesStreaks() {
+        analytics.seed();
+        create(alice, "tutorial", 2, 1.0, 10);
+        LearningProgressUpdate middle = create(alice, "tutorial", 1, 1.0, 10);
+        create(alice, "tutorial", 0, 1.0, 10);
+        assertThat(analytics.getUserStats(alice.getId()).getLongestStreak()).isEqualTo(3);
+
+        delete(middle);
+
+        ProgressStatsDTO stats = analytics.getUserStats(alice.getId());
+        assertThat(stats.getActiveDays()).isEqualTo(2);
+        assertThat(stats.getLongestStreak()).isEqualTo(1);
+        assertThat(stats.getCurrentStreak()).isEqualTo(1);
+        assertThat(stats.getFirstActiveDay()).isEqualTo(today.minusDays(2).toString());
+        assertSameAsSeedFromScratch();
+    }
+
+    // Drops every analytics document and seeds again with all updates before the boundary
+    private void assertSameAsSeedFromScratch() {
+        List<ProgressStatsDTO> users = List.of(analytics.getUserStats(alice.getId()), analytics.getUserStats(bob.getId()));
+        List<SkillStatsDTO> skills = analytics.getSkillStats();
+
+        mongoTemplate.dropCollection(ProgressStats.class);
+        mongoTemplate.dropCollection(SkillStats.class);
+        mongoTemplate.dropCollection(MigrationRecord.class);
+        ProgressAnalyticsService rebuilt = new ProgressAnalyticsService(mongoTemplate, "UTC");
+        rebuilt.seed();
+
+        assertThat(List.of(rebuilt.getUserStats(alice.getId()), rebuilt.getUserStats(bob.getId())))
+                .usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(users);
+        assertThat(rebuilt.getSkillStats()).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(skills);
+    }
+
+    private LearningProgressUpdate history(AppUser user, String templateType, int daysAgo,
+                                           double estimatedTime, double completedProgress) {
+        LearningProgressUpdate progress = new LearningProgressUpdate();
+        progress.setUser(user);
+        progress.setTemplateType(templateType);
+        progress.setEstimatedTime(estimatedTime);
+        progress.setCompletedProgress(completedProgress);
+        progress.setCreatedAt(Date.from(today.minusDays(daysAgo).atTime(12, 0).toInstant(ZoneOffset.UTC)));
+        return mongoTemplate.insert(progress);
+    }
+
+    // The writes LearningProgressUpdateService makes, followed by its callback
+    private LearningProgressUpdate create(AppUser user, String templateType, int daysAgo,
+                                          double estimatedTime, double completedProgress) {
+        LearningProgressUpdate progress = history(user, templateType, daysAgo, estimatedTime, completedProgress);
+        analytics.onCreated(progress);
+        return progress;
+    }
+
+    private void edit(LearningProgressUpdate progress, String templateType, double estimatedTime, double completedProgress) {
+        String oldTemplateType = progress.getTemplateType();
+        double oldEstimatedTime = progress.getEstimatedTime();
+        double oldCompletedProgress = progress.getCompletedProgress();
+        progress.setTemplateType(templateType);
+        progress.setEstimatedTime(estimatedTime);
+        progress.setCompletedProgress(completedProgress);
+        mongoTemplate.save(progress);
+        analytics.onUpdated(progress, oldTemplateType, oldEstimatedTime, oldCompletedProgress);
+    }
+
+    private void delete(LearningProgressUpdate progress) {
+        progress.setDeleteStatus(true);
+        mongoTemplate.save(progress);
+        analytics.onDeleted(progress);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.dtos.ProgressBucketDTO;
+import com.example.paf_backend_2025.migrations.ProgressRollupMigration;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.LearningProgressUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressRollupServiceTest extends EmbeddedMongoTest {
+
+    private static final List<String> GRANULARITIES =
+            List.of(ProgressRollupService.DAY, ProgressRollupService.WEEK, ProgressRollupService.MONTH);
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    private final LocalDate from = today.minusDays(70);
+
+    private ProgressRollupService rollups;
+    private AppUser alice;
+    private AppUser bob;
+
+    @BeforeEach
+    void setUp() {
+        rollups = new ProgressRollupService(mongoTemplate, "UTC");
+        ReflectionTestUtils.setField(rollups, "maxBuckets", 400);
+        alice = mongoTemplate.insert(new AppUser());
+        bob = mongoTemplate.insert(new AppUser());
+    }
+
+    @Test
+    void liveDeltasAgreeWithARebuild() {
+        LearningProgressUpdate early = create(alice, "tutorial", 65, 2.0, 30);
+        create(alice, "tutorial", 40, 1.5, 20);
+        LearningProgressUpdate project = create(alice, "project", 8, 3.0, 50);
+        create(bob, "tutorial", 8, 0.5, 10);
+        LearningProgressUpdate alone = create(bob, null, 31, 1.0, 5);
+        create(bob, "course", 0, 2.5, 40);
+
+        edit(early, "project", 2.5, 35);
+        edit(project, "project", 1.0, 60);
+        delete(alone);
+
+        List<List<ProgressBucketDTO>> live = snapshot();
+        assertThat(rollups.rebuild(from, today)).isPositive();
+
+        assertThat(snapshot()).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(live);
+    }
+
+    @Test
+    void backfillRunsDespiteLiveBucketsAndOnlyOnce() {
+        ProgressRollupMigration migration = new ProgressRollupMigration(rollups);
+        ReflectionTestUtils.setField(migration, "enabled", true);
+        history(alice, "tutorial", 20, 1.0, 10);
+        // A live write lands before the migration gets to run
+        create(alice, "tutorial", 0, 1.0, 10);
+
+        migration.run();
+
+        assertThat(rollups.isBackfilled()).isTrue();
+        assertThat(total(ProgressRollupService.MONTH)).isEqualTo(2);
+
+        history(alice, "tutorial", 10, 1.0, 10);
+        migration.run();
+        assertThat(total(ProgressRollupService.MONTH)).isEqualTo(2);
+    }
+
+    @Test
+    void emptyHistoryIsMarkedBackfilled() {
+        ProgressRollupMigration migration = new ProgressRollupMigration(rollups);
+        ReflectionTestUtils.setField(migration, "enabled", true);
+
+        migration.run();
+
+        assertThat(rollups.isBackfilled()).isTrue();
+    }
+
+    // Every non-empty bucket in range, per scope and granularity; deltas can leave emptied buckets behind
+    private List<List<ProgressBucketDTO>> snapshot() {
+        List<List<ProgressBucketDTO>> buckets = new ArrayList<>();
+        for (String userId : new String[]{alice.getId(), bob.getId(), null}) {
+            for (String granularity : GRANULARITIES) {
+                buckets.add(rollups.getBuckets(userId, granularity, from, today).stream()
+                        .filter(bucket -> bucket.getCount() > 0)
+                        .collect(Collectors.toList()));
+            }
+        }
+        return buckets;
+    }
+
+    private long total(String granularity) {
+        return rollups.getBuckets(null, granularity, from, today).stream().mapToLong(ProgressBucketDTO::getCount).sum();
+    }
+
+    private LearningProgressUpdate history(AppUser user, String templateType, int daysAgo,
+                                           double estimatedTime, double completedProgress) {
+        LearningProgressUpdate progress = new LearningProgressUpdate();
+        progress.setUser(user);
+        progress.setTemplateType(templateType);
+        progress.setEstimatedTime(estimatedTime);
+        progress.setCompletedProgress(completedProgress);
+        progress.setCreatedAt(Date.from(today.minusDays(daysAgo).atTime(12, 0).toInstant(ZoneOffset.UTC)));
+        return mongoTemplate.insert(progress);
+    }
+
+    private LearningProgressUpdate create(AppUser user, String templateType, int daysAgo,
+                                          double estimatedTime, double completedProgress) {
+        LearningProgressUpdate progress = history(user, templateType, daysAgo, estimatedTime, completedProgress);
+        rollups.onCreated(progress);
+        return progress;
+    }
+
+    private void edit(LearningProgressUpdate progress, String templateType, double estimatedTime, double completedProgress) {
+        String oldTemplateType = progress.getTemplateType();
+        double oldEstimatedTime = progress.getEstimatedTime();
+        double oldCompletedProgress = progress.getCompletedProgress();
+        progress.setTemplateType(templateType);
+        progress.setEstimatedTime(estimatedTime);
+        progress.setCompletedProgress(completedProgress);
+        mongoTemplate.save(progress);
+        rollups.onUpdated(progress, oldTemplateType, oldEstimatedTime, oldCompletedProgress);
+    }
+
+    private void delete(LearningProgressUpdate progress) {
+        progress.setDeleteStatus(true);
+        mongoTemplate.save(progress);
+        rollups.onDeleted(progress);
+    }
+}
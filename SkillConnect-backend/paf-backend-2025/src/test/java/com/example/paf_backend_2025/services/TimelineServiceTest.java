@@ -0,0 +1,130 @@
+package com.example.paf_backend_2025.services;
+
+import com.example.paf_backend_2025.EmbeddedMongoTest;
+import com.example.paf_backend_2025.dtos.CursorPageDTO;
+import com.example.paf_backend_2025.models.AppUser;
+import com.example.paf_backend_2025.models.Post;
+import com.example.paf_backend_2025.models.TimelineEntry;
+import com.example.paf_backend_2025.models.UserSummary;
+import com.example.paf_backend_2025.repositories.TimelineEntryRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TimelineServiceTest extends EmbeddedMongoTest {
+
+    private final long now = System.currentTimeMillis();
+
+    private TimelineService timelineService;
+    private AppUser reader;
+    private AppUser friend;
+    private AppUser celebrity;
+
+    @BeforeEach
+    void setUp() {
+        // Not loaded, so follower and following lookups go to the follows collection
+        timelineService = new TimelineService(
+                new MongoRepositoryFactory(mongoTemplate).getRepository(TimelineEntryRepository.class),
+                mongoTemplate, mock(FollowGraph.class));
+        ReflectionTestUtils.setField(timelineService, "celebrityThreshold", 1);
+        ReflectionTestUtils.setField(timelineService, "fanOutBatchSize", 1000);
+
+        reader = mongoTemplate.insert(new AppUser());
+        friend = mongoTemplate.insert(new AppUser());
+        celebrity = new AppUser();
+        celebrity.setFanOutOnRead(true);
+        celebrity = mongoTemplate.insert(celebrity);
+        follow(reader, friend);
+        follow(reader, celebrity);
+    }
+
+    @Test
+    void entriesAndCelebrityPostsShareOneCursor() {
+        // Newest first
+        List<String> expected = new ArrayList<>();
+        expected.add(post(celebrity, 1).getId());
+        Post deleted = post(friend, 2);
+        deleted.setDeleteStatus(true);
+        mongoTemplate.save(deleted);
+        expected.add(post(friend, 3).getId());
+        expected.add(post(celebrity, 4).getId());
+        expected.add(post(celebrity, 5).getId());
+        // Same instant from both sources; the higher post id comes first
+        Post tiedFriend = post(friend, 7);
+        Post tiedCelebrity = post(celebrity, 7);
+        expected.addAll(tiedFriend.getId().compareTo(tiedCelebrity.getId()) > 0
+                ? List.of(tiedFriend.getId(), tiedCelebrity.getId())
+                : List.of(tiedCelebrity.getId(), tiedFriend.getId()));
+        expected.add(post(friend, 8).getId());
+        expected.add(post(celebrity, 9).getId());
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageDTO<Post> page = timelineService.getTimeline(reader.getId(), cursor, 2);
+            page.getItems().forEach(post -> seen.add(post.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void authorsOverTheThresholdAreFlaggedWithoutFanningOut() {
+        AppUser popular = new AppUser();
+        popular.setFollowerCount(2);
+        popular = mongoTemplate.insert(popular);
+        follow(reader, popular);
+        follow(friend, popular);
+
+        Post post = post(popular, 1);
+
+        assertThat(mongoTemplate.findById(popular.getId(), AppUser.class).isFanOutOnRead()).isTrue();
+        assertThat(owners(post)).containsExactly(popular.getId());
+        assertThat(timelineService.getTimeline(reader.getId(), null, 10).getItems())
+                .extracting(Post::getId).contains(post.getId());
+    }
+
+    @Test
+    void flaggedAuthorsStayFlaggedUnderTheThreshold() {
+        Post post = post(celebrity, 1);
+
+        assertThat(mongoTemplate.findById(celebrity.getId(), AppUser.class).isFanOutOnRead()).isTrue();
+        assertThat(owners(post)).containsExactly(celebrity.getId());
+    }
+
+    private Post post(AppUser author, int minutesAgo) {
+        Post post = new Post();
+        post.setUser(author);
+        post.setAuthor(UserSummary.from(author));
+        post.setCreatedAt(new Date(now - minutesAgo * 60_000L));
+        post = mongoTemplate.insert(post);
+        timelineService.fanOut(post);
+        return post;
+    }
+
+    private List<String> owners(Post post) {
+        return mongoTemplate.find(Query.query(Criteria.where("postId").is(post.getId())), TimelineEntry.class).stream()
+                .map(TimelineEntry::getOwnerId)
+                .collect(Collectors.toList());
+    }
+
+    private void follow(AppUser follower, AppUser following) {
+        mongoTemplate.insert(new Document("followerId", follower.getId()).append("followingId", following.getId()),
+                "follows");
+    }
+}
@@ -28,6 +28,54 @@ export default {
     }
   },
 
+  async getUserStats(userId) {
+    try {
+      const response = await apiClient.get(`/progress-updates/stats/user/${userId}`);
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch progress stats";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  async getSkillStats() {
+    try {
+      const response = await apiClient.get("/progress-updates/stats/skills");
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch skill stats";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  /**
+   * Progress buckets for charts. Dates are yyyy-MM-dd; omit userId for everyone.
+   * @param {"day"|"week"|"month"} granularity
+   */
+  async getTimeline({ userId, granularity = "day", from, to }) {
+    try {
+      const path = userId
+        ? `/progress-updates/stats/user/${userId}/timeline`
+        : "/progress-updates/stats/timeline";
+      const response = await apiClient.get(path, {
+        params: { granularity, from, to },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch progress timeline";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
   async getProgressUpdateById(id) {
     try {
       const response = await apiClient.get(`/progress-updates/${id}`);
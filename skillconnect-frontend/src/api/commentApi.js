@@ -14,6 +14,55 @@ export default {
     }
   },
 
+  /**
+   * Latest comments for several posts at once (at most 50 post ids).
+   * @returns {Promise<Object<string, Array>>} comments keyed by post id
+   */
+  async getPreviews(postIds, size) {
+    try {
+      const response = await apiClient.get("/comments/post/batch", {
+        params: { postIds: postIds.join(","), size },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch comment previews";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  async getThread(postId, cursor, limit) {
+    try {
+      const response = await apiClient.get(`/comments/post/${postId}/thread`, {
+        params: { cursor, limit },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch post comments";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  async getReplies(commentId, cursor, limit) {
+    try {
+      const response = await apiClient.get(`/comments/${commentId}/replies`, {
+        params: { cursor, limit },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch replies";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
   async getCommentsByUser(userId) {
     try {
       const response = await apiClient.get(`/comments/user/${userId}`);
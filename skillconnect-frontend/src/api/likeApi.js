@@ -42,6 +42,36 @@ export default {
     }
   },
 
+  // Ids of the given posts (at most 50) that the user has liked, in one request
+  async getLikedPostIds(userId, postIds) {
+    try {
+      const response = await apiClient.get("/likes/check/batch", {
+        params: { userId, postIds: postIds.join(",") },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to check like status";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  // Like or unlike in one request; resolves to { liked, likeCount }
+  async toggleLike(userId, postId) {
+    try {
+      const response = await apiClient.post("/likes/toggle", { userId, postId });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to update like";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
   async createLike(likeData) {
     try {
       const response = await apiClient.post("/likes", likeData);
@@ -36,6 +36,26 @@ export default {
     }
   },
 
+  /**
+   * Get media types for several posts in one request (at most 50 post IDs)
+   * @param {Array<string>} postIds - Post IDs
+   * @returns {Promise<Object<string, Array<MediaTypeResponseDTO>>>} media keyed by post ID
+   */
+  async getMediaTypesByPosts(postIds) {
+    try {
+      const response = await apiClient.get("/media-types/post/batch", {
+        params: { postIds: postIds.join(",") },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch media types for posts";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
   /**
    * Get a media type by ID
    * @param {string} id - Media type ID
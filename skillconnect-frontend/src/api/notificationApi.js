@@ -28,6 +28,24 @@ export default {
       throw new Error(errorMessage);
     }
   },
+  // Open a server-sent events stream; returns a function that closes it
+  subscribeToNotifications(userId, { onNotification, onUnreadCount } = {}) {
+    const source = new EventSource(
+      `${apiClient.defaults.baseURL}/notifications/stream/${userId}`
+    );
+    if (onNotification) {
+      source.addEventListener("notification", (event) =>
+        onNotification(JSON.parse(event.data))
+      );
+    }
+    if (onUnreadCount) {
+      source.addEventListener("unread-count", (event) =>
+        onUnreadCount(Number(event.data))
+      );
+    }
+    return () => source.close();
+  },
+
   async deletNotification(id) {
     try {
       const response = await apiClient.delete(`/notifications/${id}`);
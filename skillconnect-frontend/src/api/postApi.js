@@ -18,6 +18,28 @@ export default {
     }
   },
 
+  /**
+   * Get one page of the feed, newest first
+   * @param {string} [cursor] - nextCursor from the previous page
+   * @param {number} [limit] - Page size
+   * @param {string} [viewerId] - When set, each post carries likedByViewer
+   * @returns {Promise<{items: Array<PostResponseDTO>, nextCursor: string, hasMore: boolean}>}
+   */
+  async getFeed(cursor, limit, viewerId) {
+    try {
+      const response = await apiClient.get("/posts/feed", {
+        params: { cursor, limit, viewerId },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch feed";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
   /**
    * Get a post by ID
    * @param {string} id - Post ID
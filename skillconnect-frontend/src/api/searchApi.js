@@ -0,0 +1,19 @@
+import apiClient from "./axiosConfig";
+
+export default {
+  // Ranked search over posts, comments and progress updates; type narrows to one of them
+  async search(q, { type, cursor, limit } = {}) {
+    try {
+      const response = await apiClient.get("/search", {
+        params: { q, type, cursor, limit },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to search";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+};
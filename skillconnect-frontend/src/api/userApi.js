@@ -34,6 +34,70 @@ export default {
     }
   },
 
+  // Get one page of the user directory, newest first
+  async getDirectory(cursor, limit) {
+    try {
+      const response = await apiClient.get("/users/directory", {
+        params: { cursor, limit },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to fetch users";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  // Download a user's posts, comments, likes and progress updates as NDJSON
+  async exportActivity(userId) {
+    try {
+      const response = await apiClient.get(`/users/${userId}/export`, {
+        responseType: "blob",
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to export activity";
+      if (error.response && error.response.status === 404) {
+        errorMessage = "User not found";
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  // Full-text search over username, names and bio
+  async searchUsers(q, limit) {
+    try {
+      const response = await apiClient.get("/users/search", {
+        params: { q, limit },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to search users";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
+  // Prefix suggestions for a search box
+  async typeaheadUsers(q, limit) {
+    try {
+      const response = await apiClient.get("/users/search/typeahead", {
+        params: { q, limit },
+      });
+      return response.data;
+    } catch (error) {
+      let errorMessage = "Failed to search users";
+      if (error.response) {
+        errorMessage = error.response.data.message || errorMessage;
+      }
+      throw new Error(errorMessage);
+    }
+  },
+
   // Get user by ID
   async getUserById(userId) {
     try {
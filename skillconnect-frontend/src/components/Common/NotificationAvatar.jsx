@@ -10,21 +10,19 @@ const NotificationAvatar = () => {
 
   useEffect(() => {
     const userId = localStorage.getItem("userId");
-    if (userId) {
-      notificationApi
-        .getNotificationCountByUserId(userId)
-        .then((count) => {
-          setNotificationCount(count);
-          setLoading(false);
-        })
-        .catch((err) => {
-          setError("Failed to load notifications");
-          setLoading(false);
-          console.error(err);
-        });
-    } else {
+    if (!userId) {
       setLoading(false);
+      return;
     }
+    // The stream sends the unread count on connect and again whenever it changes
+    const unsubscribe = notificationApi.subscribeToNotifications(userId, {
+      onUnreadCount: (count) => {
+        setNotificationCount(count);
+        setError(null);
+        setLoading(false);
+      },
+    });
+    return unsubscribe;
   }, []);
 
   if (loading) {
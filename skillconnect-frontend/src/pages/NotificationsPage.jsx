@@ -34,6 +34,15 @@ const NotificationsPage = () => {
           console.error("Error fetching notifications:", err);
           setLoading(false);
         });
+
+      // New and coalesced notifications replace any older copy at the top
+      return notificationApi.subscribeToNotifications(userId, {
+        onNotification: (notif) =>
+          setNotifications((prev) => [
+            notif,
+            ...prev.filter((existing) => existing.id !== notif.id),
+          ]),
+      });
     }
   }, []);
 